@@ -0,0 +1,184 @@
+package dodgeball.client;
+
+import dodgeball.render.Model3;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds, loads, and caches the game's models.
+ *
+ * <p>Models are looked up by name, like "Player", under <code>dodgeball/client/assets</code> on
+ * the classpath, so they're found inside a jar as well as in a source tree. If the classpath
+ * doesn't have them, the same path is tried relative to the working directory. Any detail levels
+ * stored beside a model (<code>Player.lod1.md3</code> and so on) are loaded with it.
+ *
+ * <p>Loads run on background threads and hand back futures, so the caller can get on with
+ * something else, like connecting to the server, while the disk works. Asking for the same name
+ * twice returns the same future, unless the first load failed: failed loads are forgotten, so
+ * asking again tries again, as when a file was caught halfway through being rewritten. Decoded
+ * models are also cached by the SHA-256 hash of their file, so two names with identical contents
+ * share one Model3.
+ */
+public class AssetRegistry {
+  private static final String ASSET_PATH = "dodgeball/client/assets/";
+  private static final AssetRegistry SHARED = new AssetRegistry();
+
+  private final ExecutorService loaders;
+  private final ConcurrentHashMap<String, CompletableFuture<Model3>> models =
+      new ConcurrentHashMap<String, CompletableFuture<Model3>>();
+  // Only models that decoded successfully are added, so a bad read is never remembered here
+  private final ConcurrentHashMap<String, Model3> decoded = new ConcurrentHashMap<String, Model3>();
+  private final AtomicInteger decodes = new AtomicInteger();
+
+  /**
+   * Create an empty registry with its own loader threads. The threads are daemons, so they never
+   * keep the program running.
+   */
+  public AssetRegistry() {
+    AtomicInteger threads = new AtomicInteger();
+    int count = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    loaders = Executors.newFixedThreadPool(count, task -> {
+      Thread thread = new Thread(task, "asset-loader-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Get the registry the client shares.
+   *
+   * @return The shared AssetRegistry.
+   */
+  public static AssetRegistry shared() {
+    return SHARED;
+  }
+
+  /**
+   * Start loading a model, or get the load already under way.
+   *
+   * @param name The model's file name without <code>.md3</code>, like "Player".
+   * @return A future for the model with its detail levels attached. It completes exceptionally
+   *         with an UncheckedIOException if the model can't be found or read, and is then dropped
+   *         from the registry so the next call starts a new load.
+   */
+  public CompletableFuture<Model3> model(String name) {
+    CompletableFuture<Model3> future = models.get(name);
+    if (future != null) {
+      return future;
+    }
+    CompletableFuture<Model3> created = new CompletableFuture<Model3>();
+    future = models.putIfAbsent(name, created);
+    if (future != null) {
+      return future;
+    }
+    // Only start loading once the future is in the map, so a failure can always take it out
+    created.whenComplete((model, error) -> {
+      if (error != null) {
+        models.remove(name, created);
+      }
+    });
+    return created.completeAsync(() -> loadModel(name), loaders);
+  }
+
+  /**
+   * Get how many distinct model files have been decoded. Files whose contents were already in
+   * the cache don't count.
+   *
+   * @return The number of decodes so far.
+   */
+  public int decodes() {
+    return decodes.get();
+  }
+
+  private Model3 loadModel(String name) {
+    try {
+      ByteBuffer data = read(name + ".md3");
+      if (data == null) {
+        throw new FileNotFoundException("No model named " + name + " in " + ASSET_PATH);
+      }
+      Model3 model = decode(data);
+      List<Model3> coarser = new ArrayList<Model3>();
+      ByteBuffer level = read(name + ".lod1.md3");
+      while (level != null) {
+        coarser.add(decode(level));
+        level = read(name + ".lod" + (coarser.size() + 1) + ".md3");
+      }
+      if (!coarser.isEmpty() && model.levelCount() == 1) {
+        model.setLevels(coarser.toArray(new Model3[0]));
+      }
+      return model;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Turn a file's bytes into a Model3, reusing the cached one if the same bytes were seen before.
+   */
+  private Model3 decode(ByteBuffer data) throws IOException {
+    String hash = hash(data);
+    Model3 model = decoded.get(hash);
+    if (model != null) {
+      return model;
+    }
+    model = new Model3(data);
+    Model3 raced = decoded.putIfAbsent(hash, model);
+    if (raced != null) {
+      return raced;
+    }
+    decodes.incrementAndGet();
+    return model;
+  }
+
+  private static String hash(ByteBuffer data) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(data.duplicate());
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Read an asset file from the classpath, or from the working directory if it isn't there.
+   * Files on disk are memory-mapped; files inside a jar are read into memory.
+   *
+   * @param file The file's name within the asset folder.
+   * @return The file's contents, or <code>null</code> if it can't be found.
+   */
+  private static ByteBuffer read(String file) throws IOException {
+    URL url = AssetRegistry.class.getClassLoader().getResource(ASSET_PATH + file);
+    if (url != null && url.getProtocol().equals("file")) {
+      try {
+        return Model3.map(new File(url.toURI()));
+      } catch (URISyntaxException e) {
+        // Fall through and read it as a stream
+      }
+    }
+    if (url != null) {
+      try (InputStream input = url.openStream()) {
+        return ByteBuffer.wrap(input.readAllBytes());
+      }
+    }
+    File local = new File(ASSET_PATH + file);
+    return local.isFile() ? Model3.map(local) : null;
+  }
+}
@@ -1,20 +1,21 @@
 package dodgeball.client;
 
-import dodgeball.game.Model3;
 import dodgeball.game.Vector2;
 import dodgeball.game.Vector3;
+import dodgeball.render.Model3;
+import dodgeball.render.ModelInstance;
 import java.awt.AWTException;
 import java.awt.Robot;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -32,44 +33,64 @@ public class Client implements Runnable {
   private static Model3 dodgeballModel;
   private static Model3 groundModel;
   private static final int MS_PER_FRAME = 33;
+  private static final int DEFAULT_TARGET_FPS = 60;
 
   private GameWindow window;
-  private boolean playing;
+  private volatile boolean playing;
   private PlayerInput playerInput;
   private Robot robot;
   private Socket socket;
   private DataInputStream input;
   private DataOutputStream output;
+  private volatile RenderLoop renderLoop;
+  private CompletableFuture<Model3> playerLoad;
+  private CompletableFuture<Model3> dodgeballLoad;
+  private CompletableFuture<Model3> groundLoad;
 
   /**
    * Create a new <code>Client</code> object without attempting to run it.
-   * Generates a new Robot for mouse movement as well as attempting to load models if they have not
-   * been loaded yet.
+   * Generates a new Robot for mouse movement and starts loading the models in the background if
+   * they have not been loaded yet.
    *
-   * @throws FileNotFoundException if the model files have been misplaced.
-   * @throws IOException if the model files cannot be read.
    * @throws AWTException if a Robot cannot be instantiated.
    */
-  public Client() throws FileNotFoundException, IOException, AWTException {
-    String rootPath = new File("").getAbsolutePath();
-    if (playerModel == null) {
-      playerModel = new Model3(new File(rootPath + "/dodgeball/client/assets/Player.md3"));
-    }
-    if (dodgeballModel == null) {
-      dodgeballModel = new Model3(new File(rootPath + "/dodgeball/client/assets/Dodgeball.md3"));
-    }
-    if (groundModel == null) {
-      groundModel = new Model3(new File(rootPath + "/dodgeball/client/assets/Ground.md3"));
-    }
+  public Client() throws AWTException {
+    AssetRegistry assets = AssetRegistry.shared();
+    playerLoad = assets.model("Player");
+    dodgeballLoad = assets.model("Dodgeball");
+    // The ground is drawn as static geometry, so build its BSP tree while loading rather than
+    // mid-game
+    groundLoad = assets.model("Ground").thenApply(model -> {
+      model.bsp();
+      return model;
+    });
     robot = new Robot();
   }
 
+  /**
+   * Wait for the models to finish loading.
+   *
+   * @return <code>true</code> if every model loaded, <code>false</code> otherwise.
+   */
+  private boolean awaitModels() {
+    try {
+      playerModel = playerLoad.join();
+      dodgeballModel = dodgeballLoad.join();
+      groundModel = groundLoad.join();
+      return true;
+    } catch (CompletionException e) {
+      System.out.println("The game's models could not be loaded: " + e.getCause().getMessage());
+      return false;
+    }
+  }
+
   /**
    * Join and play a game of Dodgeball.
    */
   @Override
   public void run() {
-    if (!connectToServer()) {
+    // The models load in the background while the player picks a server
+    if (!connectToServer() || !awaitModels()) {
       return;
     }
     createWindow();
@@ -102,30 +123,30 @@ public class Client implements Runnable {
     }, 0, MS_PER_FRAME, TimeUnit.MILLISECONDS);
   }
 
+  /**
+   * Draw frames until the player quits. The frame rate can be set with the
+   * <code>dodgeball.fps</code> system property, where 0 means as fast as possible.
+   */
   private void startWindowRefreshing() {
-    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    scheduler.scheduleAtFixedRate(() -> {
-      if (playing) {
-        window.render();
-      } else {
-        scheduler.shutdown();
-        System.exit(0);
-      }
-    }, 0, MS_PER_FRAME, TimeUnit.MILLISECONDS);
+    renderLoop = window.createRenderLoop(targetFpsSetting());
+    if (!playing) {
+      renderLoop.stop();
+    }
+    renderLoop.run();
+    System.exit(0);
   }
 
   private void update() throws IOException {
     if (input.readBoolean()) {
       quit();
     }
-    Vector3 myPos = readVector3();
-    Vector3 myDir = readVector3();
-    window.setCameraPosition(myPos);
-    window.setCameraDirection(myDir);
-
-    List<Model3> models = new ArrayList<Model3>();
-
-    models.add(groundModel);
+    // Decode straight into the window's back world state; none of it is seen until it's
+    // published below
+    WorldState world = window.world();
+    world.setCameraPosition(readVector3());
+    world.setCameraDirection(readVector3());
+    world.clearInstances();
+    List<ModelInstance> models = world.instances();
 
     int numPlayers = input.readInt();
     List<Vector3> playerPositions = readManyVector3s(numPlayers);
@@ -137,12 +158,10 @@ public class Client implements Runnable {
     addDodgeballModels(dodgeballPositions, models);
 
     writeInfo();
-    robot.mouseMove((int) (window.getSize().getWidth() / 2.0),
-        (int) (window.getSize().getHeight() / 2.0));
 
     playerInput.releaseLeftClick();
 
-    window.setModels(models);
+    window.publishWorld();
   }
 
   /**
@@ -151,6 +170,10 @@ public class Client implements Runnable {
    */
   public void quit() {
     playing = false;
+    RenderLoop loop = renderLoop;
+    if (loop != null) {
+      loop.stop();
+    }
   }
 
   /**
@@ -202,6 +225,58 @@ public class Client implements Runnable {
     return true;
   }
 
+  /**
+   * Read the <code>dodgeball.fps</code> system property. A value that isn't a whole number of 0
+   * or more is reported and the default used instead.
+   *
+   * @return The frame rate to aim for, or 0 for no limit.
+   */
+  private static int targetFpsSetting() {
+    String value = System.getProperty("dodgeball.fps");
+    if (value == null) {
+      return DEFAULT_TARGET_FPS;
+    }
+    try {
+      int fps = Integer.parseInt(value.trim());
+      if (fps >= 0) {
+        return fps;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    System.out.println("dodgeball.fps must be a whole number, 0 or more, not " + value
+        + "; using " + DEFAULT_TARGET_FPS);
+    return DEFAULT_TARGET_FPS;
+  }
+
+  /**
+   * Read the <code>dodgeball.scale</code> system property. A value that isn't 0 or in
+   * [<code>ResolutionScaler.MIN_SCALE</code>, <code>ResolutionScaler.MAX_SCALE</code>] is reported
+   * and the fallback used instead.
+   *
+   * @param fallback The scale to use when the property isn't set or can't be used.
+   * @return The scale to draw at, or 0 to adapt to frame times.
+   */
+  static double scaleSetting(double fallback) {
+    String value = System.getProperty("dodgeball.scale");
+    if (value == null) {
+      return fallback;
+    }
+    try {
+      double scale = Double.parseDouble(value.trim());
+      if (scale == 0
+          || (scale >= ResolutionScaler.MIN_SCALE && scale <= ResolutionScaler.MAX_SCALE)) {
+        return scale;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    System.out.println("dodgeball.scale must be 0 or from " + ResolutionScaler.MIN_SCALE + " to "
+        + ResolutionScaler.MAX_SCALE + ", not " + value + "; using "
+        + (fallback == 0 ? "an adaptive scale" : fallback));
+    return fallback;
+  }
+
   /**
    * Initialize a new GameWindow and corresponding input handler based on the
    * player's screen size.
@@ -213,51 +288,47 @@ public class Client implements Runnable {
     double height = dim.getHeight();
     window = new GameWindow((int) (res * width), (int) (res * height), this);*/
     window = new GameWindow(1200, 1080, this);
-    playerInput = new PlayerInput(window);
+    window.setZBuffered(Boolean.getBoolean("dodgeball.zbuffer"));
+    window.setPipelined(Boolean.parseBoolean(System.getProperty("dodgeball.pipeline", "true")));
+    window.setResolutionScale(scaleSetting(0));
+    window.setStaticInstances(List.of(new ModelInstance(groundModel, Vector3.ZERO)));
+    playerInput = new PlayerInput(window, robot);
   }
 
   /**
-   * Add a number of player models to a <code>List</code> of <code>Model3</code>
-   * objects.
+   * Add a number of player instances to a <code>List</code> of <code>ModelInstance</code>
+   * objects. Every instance shares the one player model.
    *
    * @param positions  A <code>List</code> of <code>Vector3</code> objects
    *                   representing the players' centers.
    * @param directions A <code>List</code> of <code>Vector3</code> objects
    *                   representing the players' look vectors.
-   * @param models     The <code>List&lt;Model33&gt;</code> that new models should
+   * @param models     The <code>List&lt;ModelInstance&gt;</code> that new instances should
    *                   be added to.
    */
   private void addPlayerModels(List<Vector3> positions, List<Vector2> directions,
-      List<Model3> models) {
+      List<ModelInstance> models) {
     for (int i = 0; i < positions.size(); i++) {
       Vector3 pos = positions.get(i);
       Vector2 dir = directions.get(i);
 
-      Model3 playerToDraw = playerModel.clone();
-      playerToDraw.translate(pos);
-
-      double lookAngle = Math.toDegrees(Math.acos(dir.dot(Vector2.I)));
-      playerToDraw.rotate(lookAngle);
-      models.add(playerToDraw);
+      double lookAngle = Math.toDegrees(Math.atan2(dir.ycoord, dir.xcoord));
+      models.add(new ModelInstance(playerModel, pos, lookAngle));
     }
   }
 
   /**
-   * Add a number of dodgeball models to a <code>List</code> of
-   * <code>Model3</code> objects.
+   * Add a number of dodgeball instances to a <code>List</code> of
+   * <code>ModelInstance</code> objects. Every instance shares the one dodgeball model.
    *
    * @param positions A <code>List</code> of <code>Vector3</code> objects
    *                  representing the dodgeballs' centers.
-   * @param models    The <code>List&lt;Model33&gt;</code> that new models should
+   * @param models    The <code>List&lt;ModelInstance&gt;</code> that new instances should
    *                  be added to.
    */
-  private void addDodgeballModels(List<Vector3> positions, List<Model3> models) {
+  private void addDodgeballModels(List<Vector3> positions, List<ModelInstance> models) {
     for (int i = 0; i < positions.size(); i++) {
-      Vector3 pos = positions.get(i);
-
-      Model3 dodgeballToDraw = dodgeballModel.clone();
-      dodgeballToDraw.translate(pos);
-      models.add(dodgeballToDraw);
+      models.add(new ModelInstance(dodgeballModel, positions.get(i)));
     }
   }
 
@@ -268,9 +339,8 @@ public class Client implements Runnable {
    * 2. Six <code>boolean</code> values representing whether the w, a, s, d,
    * space, and left-click buttons are being
    * held, respectively.
-   * 3. Two <code>double</code> values representing the mouse's x and y positions,
-   * respectively, where 0 is the center,
-   * -1 is the top or left, and 1 is the bottom or right.
+   * 3. Two <code>double</code> values representing how far the mouse has moved
+   * right and up, respectively, in pixels since the last write.
    *
    * @throws IOException if data cannot be written to the output stream.
    */
@@ -283,12 +353,9 @@ public class Client implements Runnable {
     output.writeBoolean(playerInput.spaceDown());
     output.writeBoolean(playerInput.cdown());
     output.writeBoolean(playerInput.leftClickDown());
-    double absoluteX = playerInput.mouseX();
-    double relativeX = absoluteX - window.getSize().getWidth() / 2.0;
-    output.writeDouble(relativeX);
-    double absoluteY = playerInput.mouseY();
-    double relativeY = -absoluteY + window.getSize().getHeight() / 2.0;
-    output.writeDouble(relativeY);
+    Vector2 movement = playerInput.takeMouseMovement();
+    output.writeDouble(movement.xcoord);
+    output.writeDouble(-movement.ycoord);
   }
 
   /**
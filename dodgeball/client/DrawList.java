@@ -0,0 +1,198 @@
+package dodgeball.client;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * A frame's worth of screen-space polygons, in drawing order, stored in flat primitive arrays:
+ * every polygon's screen coordinates back to back, an offset table marking where each polygon
+ * starts, and one packed RGB color per polygon. Each vertex can also carry the inverse of its
+ * distance from the camera, for renderers that depth test per pixel. The arrays only ever grow,
+ * so once a DrawList has held a frame it can be cleared and refilled without allocating.
+ */
+public class DrawList {
+  private static final int COLOR_CACHE_SIZE = 64;
+
+  private int[] xcoords = new int[1024];
+  private int[] ycoords = new int[1024];
+  private float[] inverseDepths = new float[1024];
+  private int[] starts = new int[257];
+  private int[] colors = new int[256];
+  private int length;
+  private int vertices;
+
+  // Scratch space for Graphics.fillPolygon, which wants arrays that start at index 0
+  private int[] polygonX = new int[16];
+  private int[] polygonY = new int[16];
+  private int[] cachedRgbs = new int[COLOR_CACHE_SIZE];
+  private Color[] cachedColors = new Color[COLOR_CACHE_SIZE];
+
+  /**
+   * Empty the list, keeping its storage.
+   */
+  public void clear() {
+    length = 0;
+    vertices = 0;
+    starts[0] = 0;
+  }
+
+  /**
+   * Get the number of polygons in the list.
+   *
+   * @return The number of polygons.
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Start a new polygon. Its vertices are added with <code>addPoint</code>, and it ends when the
+   * next polygon starts or the list is drawn.
+   *
+   * @param rgb The polygon's fill color, packed as 0xRRGGBB.
+   */
+  public void startPolygon(int rgb) {
+    if (length + 1 >= colors.length) {
+      colors = Arrays.copyOf(colors, colors.length * 2);
+      starts = Arrays.copyOf(starts, starts.length * 2);
+    }
+    colors[length] = rgb;
+    starts[length] = vertices;
+    length++;
+    starts[length] = vertices;
+  }
+
+  /**
+   * Add a vertex to the polygon that was started last.
+   *
+   * @param x The vertex's x-coordinate on screen.
+   * @param y The vertex's y-coordinate on screen.
+   */
+  public void addPoint(int x, int y) {
+    addPoint(x, y, 0);
+  }
+
+  /**
+   * Add a vertex to the polygon that was started last, along with its depth.
+   *
+   * @param x            The vertex's x-coordinate on screen.
+   * @param y            The vertex's y-coordinate on screen.
+   * @param inverseDepth One over the vertex's distance along the camera's look vector. Unlike
+   *                     depth itself, this can be interpolated linearly across the screen.
+   */
+  public void addPoint(int x, int y, float inverseDepth) {
+    if (vertices == xcoords.length) {
+      xcoords = Arrays.copyOf(xcoords, xcoords.length * 2);
+      ycoords = Arrays.copyOf(ycoords, ycoords.length * 2);
+      inverseDepths = Arrays.copyOf(inverseDepths, inverseDepths.length * 2);
+    }
+    xcoords[vertices] = x;
+    ycoords[vertices] = y;
+    inverseDepths[vertices] = inverseDepth;
+    vertices++;
+    starts[length] = vertices;
+  }
+
+  /**
+   * Copy a polygon from another DrawList onto the end of this one.
+   *
+   * @param source The list to copy from.
+   * @param index  The index of the polygon in <code>source</code>.
+   */
+  public void addPolygon(DrawList source, int index) {
+    startPolygon(source.colors[index]);
+    for (int j = source.starts[index]; j < source.starts[index + 1]; j++) {
+      addPoint(source.xcoords[j], source.ycoords[j], source.inverseDepths[j]);
+    }
+  }
+
+  /**
+   * Get the index in the vertex arrays of a polygon's first vertex. The polygon's vertices run up
+   * to, but not including, <code>start(index + 1)</code>.
+   *
+   * @param index The index of the polygon, from 0 to <code>length()</code> inclusive.
+   * @return The index of the polygon's first vertex.
+   */
+  public int start(int index) {
+    return starts[index];
+  }
+
+  /**
+   * Get a polygon's fill color.
+   *
+   * @param index The index of the polygon.
+   * @return The polygon's color, packed as 0xRRGGBB.
+   */
+  public int color(int index) {
+    return colors[index];
+  }
+
+  /** The screen x-coordinate of every vertex. Shared with the DrawList; must not be modified. */
+  int[] xcoords() {
+    return xcoords;
+  }
+
+  /** The screen y-coordinate of every vertex. Shared with the DrawList; must not be modified. */
+  int[] ycoords() {
+    return ycoords;
+  }
+
+  /** The inverse depth of every vertex. Shared with the DrawList; must not be modified. */
+  float[] inverseDepths() {
+    return inverseDepths;
+  }
+
+  /**
+   * Fill every polygon in the list, in order.
+   *
+   * @param g The graphics context to draw with.
+   */
+  public void draw(Graphics g) {
+    draw(g, 1);
+  }
+
+  /**
+   * Fill every polygon in the list, in order, with every coordinate multiplied by a scale. Drawing
+   * at a reduced scale fills fewer pixels, for a renderer that draws small and then stretches the
+   * result over the screen.
+   *
+   * @param g     The graphics context to draw with.
+   * @param scale What to multiply each coordinate by.
+   */
+  public void draw(Graphics g, double scale) {
+    for (int i = 0; i < length; i++) {
+      int start = starts[i];
+      int count = starts[i + 1] - start;
+      if (count > polygonX.length) {
+        polygonX = new int[count];
+        polygonY = new int[count];
+      }
+      if (scale == 1) {
+        System.arraycopy(xcoords, start, polygonX, 0, count);
+        System.arraycopy(ycoords, start, polygonY, 0, count);
+      } else {
+        for (int j = 0; j < count; j++) {
+          polygonX[j] = (int) (xcoords[start + j] * scale);
+          polygonY[j] = (int) (ycoords[start + j] * scale);
+        }
+      }
+      g.setColor(cachedColor(colors[i]));
+      g.fillPolygon(polygonX, polygonY, count);
+    }
+  }
+
+  /**
+   * Look up a Color for a packed RGB value, so drawing doesn't allocate one per polygon.
+   */
+  private Color cachedColor(int rgb) {
+    int slot = (rgb ^ (rgb >>> 7) ^ (rgb >>> 15)) & (COLOR_CACHE_SIZE - 1);
+    Color color = cachedColors[slot];
+    if (color == null || cachedRgbs[slot] != rgb) {
+      color = new Color(rgb);
+      cachedColors[slot] = color;
+      cachedRgbs[slot] = rgb;
+    }
+    return color;
+  }
+}
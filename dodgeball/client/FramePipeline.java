@@ -0,0 +1,140 @@
+package dodgeball.client;
+
+import dodgeball.render.ModelInstance;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Splits each frame into two stages on two threads, so one frame can be projected and sorted
+ * while the one before it is being rasterized. The transform stage runs on a thread of its own,
+ * turning the current instances into DrawLists with a SceneRenderer. The raster stage is
+ * whichever thread calls <code>latest</code>, normally a RenderLoop's.
+ *
+ * <p>The stages pass DrawLists through a pair of RingBuffers: filled lists go one way and
+ * emptied lists come back the other. All of the lists are created up front, so the pipeline
+ * never allocates once it is running. The transform stage only builds a frame once the scene has
+ * changed since its last one, and only when it has an empty list to fill. With one list on
+ * screen, that lets up to two finished frames wait behind it. When the raster stage comes back
+ * for another, only the newest is drawn and the older ones are recycled, so stale frames are
+ * dropped rather than drawn late. Until something changes, the raster stage keeps redrawing the
+ * frame it has.
+ *
+ * <p>Whoever changes the scene calls <code>changed</code> afterwards. The transform stage sleeps
+ * until then, rather than waking up to check.
+ */
+public class FramePipeline {
+  // One list being drawn, one waiting, and one being filled
+  private static final int LISTS = 3;
+
+  private final SceneRenderer renderer;
+  private final Supplier<List<ModelInstance>> instances;
+  private final LongSupplier version;
+  private final RingBuffer<DrawList> filled = new RingBuffer<DrawList>(LISTS);
+  private final RingBuffer<DrawList> empty = new RingBuffer<DrawList>(LISTS);
+  private final Thread transformer;
+  private final AtomicLong transformed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private DrawList front; // only touched by the raster stage
+
+  /**
+   * Create a pipeline and start its transform stage.
+   *
+   * @param renderer  The SceneRenderer the transform stage projects with. Nothing else should use
+   *                  it from now on.
+   * @param instances Gives the instances to draw. Called once per frame from the transform
+   *                  stage's thread.
+   * @param version   Gives a number that changes whenever the instances or the camera do. A frame
+   *                  is only built when it differs from the one the last frame was built at.
+   *                  Each change must be followed by a call to <code>changed</code>.
+   */
+  public FramePipeline(SceneRenderer renderer, Supplier<List<ModelInstance>> instances,
+      LongSupplier version) {
+    this.renderer = renderer;
+    this.instances = instances;
+    this.version = version;
+    for (int i = 0; i < LISTS; i++) {
+      empty.offer(new DrawList());
+    }
+    transformer = new Thread(this::transform, "frame-transform");
+    transformer.setDaemon(true);
+    transformer.start();
+  }
+
+  /**
+   * Get the newest frame the transform stage has finished. Called from the raster stage only.
+   * Any finished frames older than it are recycled without being drawn, and so is the frame this
+   * returned last time, unless nothing newer has arrived.
+   *
+   * @return The DrawList to draw, or <code>null</code> if no frame has been finished yet.
+   */
+  public DrawList latest() {
+    DrawList newest = filled.poll();
+    if (newest == null) {
+      return front;
+    }
+    for (DrawList next = filled.poll(); next != null; next = filled.poll()) {
+      empty.offer(newest);
+      dropped.incrementAndGet();
+      newest = next;
+    }
+    if (front != null) {
+      empty.offer(front);
+    }
+    front = newest;
+    LockSupport.unpark(transformer);
+    return front;
+  }
+
+  /**
+   * Wake the transform stage to build a frame of the scene as it is now. Called after every
+   * change to the version, from any thread.
+   */
+  public void changed() {
+    LockSupport.unpark(transformer);
+  }
+
+  /**
+   * Get how many frames the transform stage has finished.
+   *
+   * @return The number of frames transformed so far.
+   */
+  public long transformed() {
+    return transformed.get();
+  }
+
+  /**
+   * Get how many finished frames were recycled without ever being drawn, because a newer one was
+   * ready by the time the raster stage got to them.
+   *
+   * @return The number of frames dropped so far.
+   */
+  public long dropped() {
+    return dropped.get();
+  }
+
+  private void transform() {
+    long built = Long.MIN_VALUE;
+    while (true) {
+      // Read before the instances, so a change made mid-frame still counts as new next time
+      long current = version.getAsLong();
+      if (current == built) {
+        // Woken by changed; a change made since the read above leaves the permit set
+        LockSupport.park(this);
+        continue;
+      }
+      DrawList list = empty.poll();
+      if (list == null) {
+        // Woken by latest once it hands a list back
+        LockSupport.park(this);
+        continue;
+      }
+      renderer.render(instances.get(), list);
+      built = current;
+      filled.offer(list);
+      transformed.incrementAndGet();
+    }
+  }
+}
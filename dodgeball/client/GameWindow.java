@@ -1,17 +1,23 @@
 package dodgeball.client;
 
-import dodgeball.game.Camera;
-import dodgeball.game.Model3;
-import dodgeball.game.Polygon3;
 import dodgeball.game.Vector3;
-import java.awt.Color;
-import java.awt.Graphics;
+import dodgeball.render.Camera;
+import dodgeball.render.ModelInstance;
+import java.awt.BorderLayout;
+import java.awt.Canvas;
 import java.awt.Graphics2D;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
@@ -25,15 +31,26 @@ import javax.swing.SwingUtilities;
 public class GameWindow extends JFrame {
   private int pixelsX;
   private int pixelsY;
-  private int halfWidth;
-  private int halfHeight;
-  private double scaleFactorX;
-  private double scaleFactorY;
   private Camera camera;
-  private List<Model3> models;
   private GamePanel panel;
-
-  private static final double Y_SCALE_FACTOR_MULTIPLIER = Math.sqrt(3);
+  private SceneRenderer renderer;
+  private DrawList backList;
+  private Canvas canvas;
+  private BufferStrategy strategy;
+  private boolean pipelined;
+  private volatile FramePipeline pipeline;
+  private double resolutionScale;
+  private ResolutionScaler scaler;
+  private BufferedImage lowResolution; // what painted frames are drawn into when scaled down
+  // Bumped whenever a world state is published, so a FramePipeline knows when to rebuild
+  private final AtomicLong sceneVersion = new AtomicLong();
+  // World states are handed from the network thread to the drawing thread the same way GamePanel
+  // hands over DrawLists: world is being written, pendingWorld is the newest one published, and
+  // frontWorld is the one being drawn
+  private WorldState world;
+  private final AtomicReference<WorldState> pendingWorld = new AtomicReference<WorldState>();
+  private final AtomicReference<WorldState> freeWorld = new AtomicReference<WorldState>();
+  private WorldState frontWorld;
 
   /**
    * Generate a Window that will fit a screen with the given width and height. Will attempt to
@@ -44,11 +61,15 @@ public class GameWindow extends JFrame {
     buildWindow(screenWidth, screenHeight);
 
     camera = new Camera(0, 0, 0, 1, 0, 0);
+    world = new WorldState();
+    world.setCameraPosition(camera.position());
+    world.setCameraDirection(camera.direction());
 
     panel = new GamePanel();
     add(panel);
     
-    models = new ArrayList<Model3>();
+    renderer = new SceneRenderer(camera, pixelsX, pixelsY);
+    backList = new DrawList();
 
     addWindowListener(new WindowAdapter() {
       @Override
@@ -74,48 +95,60 @@ public class GameWindow extends JFrame {
     setFocusable(true);
     setResizable(false);
     setSize(pixelsX, pixelsY);
-    halfWidth = pixelsX / 2;
-    halfHeight = pixelsY / 2;
-
-    // 90 degree by 60 degree aspect ratio
-    scaleFactorX = halfWidth;
-    scaleFactorY = halfHeight * Y_SCALE_FACTOR_MULTIPLIER;
   }
 
+  /**
+   * Paints the most recent DrawList. Lists are handed over without locks: the render thread
+   * publishes a finished list into <code>pending</code>, the paint thread takes it and hands back
+   * the list it was painting through <code>free</code>, and the render thread refills that one. At
+   * most three lists are ever in use, and a list that the paint thread never got to is simply
+   * refilled. If a ZBufferRasterizer is set, lists are rasterized with it instead of painted
+   * polygon by polygon.
+   */
   private static class GamePanel extends JPanel {
-    private volatile List<Object[]> drawables;
-
-    public void setDrawables(List<Object[]> drawables) {
-      this.drawables = drawables;
-    }
+    private final AtomicReference<DrawList> pending = new AtomicReference<DrawList>();
+    private final AtomicReference<DrawList> free = new AtomicReference<DrawList>();
+    private DrawList front;
+    private volatile ZBufferRasterizer rasterizer;
 
     /**
-     * Draw a polygon on screen given its coordinate and color data.
+     * Hand a finished DrawList to the paint thread. Called from the render thread.
      *
-     * @param An Object[] containing:
-     *          - An int[] containing the x-coordinates of the vertices on the
-     *          screen.
-     *          - An int[] containing the y-coordinates of the vertices on the
-     *          screen.
-     *          - The Color of the Polygon3.
+     * @param list The list to show.
+     * @return An empty list the render thread can fill next.
      */
-    private void drawPolygon(Graphics g, Object[] polyData) {
-      int[] xcoords = (int[]) polyData[0];
-      int[] ycoords = (int[]) polyData[1];
-      g.setColor((Color) polyData[2]);
-      g.fillPolygon(xcoords, ycoords, xcoords.length);
+    public DrawList publish(DrawList list) {
+      DrawList stale = pending.getAndSet(list);
+      if (stale != null) {
+        return stale;
+      }
+      DrawList next = free.getAndSet(null);
+      return next != null ? next : new DrawList();
     }
 
     @Override
     public void paintComponent(Graphics g) {
       super.paintComponent(g);
 
-      if (drawables == null) {
+      DrawList fresh = pending.getAndSet(null);
+      if (fresh != null) {
+        if (front != null) {
+          free.set(front);
+        }
+        front = fresh;
+      }
+      if (front == null) {
         return;
       }
 
       Graphics2D g2d = (Graphics2D) g.create();
-      drawables.stream().forEach(p -> drawPolygon(g2d, p));
+      ZBufferRasterizer zbuffer = rasterizer;
+      if (zbuffer != null) {
+        zbuffer.draw(front, g2d);
+      } else {
+        front.draw(g2d);
+      }
+      g2d.dispose();
     }
   }
 
@@ -130,23 +163,24 @@ public class GameWindow extends JFrame {
    *              direction.
    */
   public void rotateCamera(double yaw, double pitch) {
-    camera.rotate(yaw, pitch);
+    world.setCameraDirection(Camera.rotateLookVector(world.cameraDirection().unit(), yaw, pitch));
+    publishWorld();
   }
 
   public Vector3 cameraPosition() {
-    return camera.position();
+    return world.cameraPosition();
   }
 
   public Vector3 cameraDirection() {
-    return camera.direction();
+    return world.cameraDirection().unit();
   }
 
   public Vector3 cameraHorizontal() {
-    return camera.horizontal();
+    return cameraDirection().cross(Vector3.J).unit();
   }
 
   public Vector3 cameraVertical() {
-    return camera.vertical();
+    return cameraHorizontal().cross(cameraDirection()).unit();
   }
 
   /**
@@ -156,11 +190,13 @@ public class GameWindow extends JFrame {
    *                 respectively.
    */
   public void setCameraPosition(Vector3 position) {
-    camera.setPosition(position);
+    world.setCameraPosition(position);
+    publishWorld();
   }
   
   public void setCameraDirection(Vector3 direction) {
-    camera.setDirection(direction);
+    world.setCameraDirection(direction);
+    publishWorld();
   }
 
   /**
@@ -171,7 +207,7 @@ public class GameWindow extends JFrame {
    * @param z The amount the Camera should be translated in the z direction.
    */
   public void translateCamera(double x, double y, double z) {
-    camera.translate(new Vector3(x, y, z));
+    translateCamera(new Vector3(x, y, z));
   }
 
   /**
@@ -182,65 +218,316 @@ public class GameWindow extends JFrame {
    *                     respectively.
    */
   public void translateCamera(Vector3 displacement) {
-    camera.translate(displacement);
+    world.setCameraPosition(world.cameraPosition().add(displacement));
+    publishWorld();
   }
 
-  public void addModel(Model3 model) {
-    models.add(model);
+  public void addInstance(ModelInstance instance) {
+    world.addInstance(instance);
+    publishWorld();
   }
 
-  public void clearModels() {
-    models.clear();
+  public void clearInstances() {
+    world.clearInstances();
+    publishWorld();
   }
 
   /**
-   * Clears the model list and repopulates it with a new one.
+   * Clears the instance list and repopulates it with a new one.
    *
-   * @param models The list of models that should be tracked.
+   * @param instances The list of model instances that should be tracked.
    */
-  public void setModels(List<Model3> models) {
-    clearModels();
-    models = new ArrayList<Model3>(models);
-    for (Model3 model : models) {
-      addModel(model);
+  public void setInstances(List<ModelInstance> instances) {
+    world.clearInstances();
+    for (ModelInstance instance : instances) {
+      world.addInstance(instance);
     }
+    publishWorld();
   }
 
   /**
-   * Convert a Polygon3 to an array of x-coordinates, an array of y-coordinates,
-   * and a Color.
+   * Get the world state that the next <code>publishWorld</code> will hand over to be drawn. It
+   * starts out as a copy of the last one published, so it can be changed piece by piece or
+   * cleared and filled in from scratch. It should only be used from one thread, usually the one
+   * reading network updates, and the camera and instance methods above write into it too.
    *
-   * @param polygon The 3D polygon that needs to be converted.
-   * @return An Object[] containing:
-   *         - An int[] containing the x-coordinates of the vertices on the
-   *         screen.
-   *         - An int[] containing the y-coordinates of the vertices on the
-   *         screen.
-   *         - The Color of the Polygon3.
-   */
-  private Object[] polygonToDrawable(Polygon3 polygon) {
-    int[] xcoords = new int[polygon.length()];
-    int[] ycoords = new int[xcoords.length];
-
-    Vector3 point;
-    for (int i = 0; i < xcoords.length; i++) {
-      point = polygon.point(i);
-      xcoords[i] = (int) (point.xcoord * scaleFactorX) + halfWidth;
-      ycoords[i] = halfHeight - (int) (point.ycoord * scaleFactorY);
+   * @return The WorldState being written.
+   */
+  public WorldState world() {
+    return world;
+  }
+
+  /**
+   * Hand the world state from <code>world</code> over to be drawn, all at once. Nothing written
+   * into it shows on screen until this is called, and the drawing thread never sees it half
+   * written. If the drawing thread hasn't taken the last one yet, it's skipped.
+   */
+  public void publishWorld() {
+    WorldState published = world;
+    WorldState next = pendingWorld.getAndSet(published);
+    if (next == null) {
+      next = freeWorld.getAndSet(null);
+    }
+    if (next == null) {
+      next = new WorldState();
+    }
+    next.copyFrom(published);
+    world = next;
+    sceneChanged();
+  }
+
+  /**
+   * Switch to the newest published world state, if there is one, and point the camera where it
+   * says. Only called from whichever thread is turning the world into DrawLists, which is the
+   * only thread that touches the Camera.
+   *
+   * @return The instances to draw. They stay valid until the next call.
+   */
+  private List<ModelInstance> takeWorld() {
+    WorldState fresh = pendingWorld.getAndSet(null);
+    if (fresh != null) {
+      if (frontWorld != null) {
+        freeWorld.set(frontWorld);
+      }
+      frontWorld = fresh;
+      camera.setPosition(fresh.cameraPosition());
+      camera.setDirection(fresh.cameraDirection());
+    }
+    return frontWorld != null ? frontWorld.instances() : List.of();
+  }
+
+  /**
+   * Set the instances that never move, like the arena itself. They're drawn every frame without
+   * being added to the instance list, and only re-projected when the camera moves.
+   *
+   * @param instances The static instances.
+   */
+  public void setStaticInstances(List<ModelInstance> instances) {
+    renderer.setStaticInstances(instances);
+    sceneChanged();
+  }
+
+  /**
+   * Mark the scene as changed, and wake the FramePipeline, if there is one, to build a frame of
+   * it.
+   */
+  private void sceneChanged() {
+    sceneVersion.incrementAndGet();
+    FramePipeline current = pipeline;
+    if (current != null) {
+      current.changed();
     }
-    return new Object[] { xcoords, ycoords, polygon.color() };
   }
 
   private void renderModels() {
-    List<Model3> copiedModels = new ArrayList<Model3>(models);
-    List<Polygon3> polys = new ArrayList<Polygon3>();
-    for (Model3 model : copiedModels) {
-      polys.addAll(Arrays.asList(camera.render(model)));
+    renderer.render(takeWorld(), backList);
+    backList = panel.publish(backList);
+  }
+
+  /**
+   * Choose whether each frame's depth sort should start from the previous frame's order.
+   *
+   * @param incremental <code>true</code> to sort incrementally, <code>false</code> to sort each
+   *                    frame from scratch.
+   */
+  public void setIncrementalSort(boolean incremental) {
+    renderer.sorter().setIncremental(incremental);
+  }
+
+  /**
+   * Choose between painting polygons back to front and rasterizing them with a depth buffer. The
+   * depth buffer draws intersecting polygons correctly and spreads the work over every core, and
+   * with it the renderer no longer needs to sort.
+   *
+   * @param zbuffered <code>true</code> to use a ZBufferRasterizer, <code>false</code> to paint.
+   */
+  public void setZBuffered(boolean zbuffered) {
+    renderer.setDepthSorted(!zbuffered);
+    panel.rasterizer = zbuffered
+        ? new ZBufferRasterizer(pixelsX, pixelsY, panel.getBackground().getRGB() & 0xFFFFFF)
+        : null;
+  }
+
+  /**
+   * Choose whether the render loop projects and sorts each frame on a thread of its own, so the
+   * next frame is transformed while the last one is being drawn, and frames where nothing moved
+   * aren't transformed at all. Only takes effect if called before <code>createRenderLoop</code>.
+   *
+   * @param pipelined <code>true</code> to split frames into stages with a FramePipeline,
+   *                  <code>false</code> to render each frame from start to finish on the loop's
+   *                  thread.
+   */
+  public void setPipelined(boolean pipelined) {
+    this.pipelined = pipelined;
+  }
+
+  /**
+   * Fix the scale the render loop draws frames at, instead of letting it adapt. Frames are drawn
+   * at the scale into an offscreen image and stretched over the window. Only takes effect if
+   * called before <code>createRenderLoop</code>.
+   *
+   * @param scale The scale to draw at, in [<code>ResolutionScaler.MIN_SCALE</code>, 1], or 0 to
+   *              lower the scale whenever frames take too long to draw and raise it again once
+   *              they don't.
+   * @throws IllegalArgumentException if <code>scale</code> is out of range.
+   */
+  public void setResolutionScale(double scale) {
+    if (scale != 0 && !(scale >= ResolutionScaler.MIN_SCALE && scale <= 1)) {
+      throw new IllegalArgumentException("Scale must be 0 or in [" + ResolutionScaler.MIN_SCALE
+          + ", 1]: " + scale);
+    }
+    resolutionScale = scale;
+  }
+
+  /**
+   * Get the scale the render loop is drawing frames at.
+   *
+   * @return The current scale, or 1 if there is no render loop.
+   */
+  public double resolutionScale() {
+    return scaler != null ? scaler.scale() : 1;
+  }
+
+  /**
+   * Switch the window to active rendering and create a loop that draws frames into it. The
+   * panel is replaced with a Canvas whose BufferStrategy the loop draws and flips itself, so
+   * frames never wait on the event dispatch thread. <code>render</code> should not be called
+   * once this has been.
+   *
+   * @param targetFps The number of frames to aim for each second, or 0 for no limit.
+   * @return A loop that renders one frame per iteration. Run it on a thread of its own.
+   * @throws IllegalArgumentException if <code>targetFps</code> is negative.
+   */
+  public RenderLoop createRenderLoop(int targetFps) {
+    try {
+      SwingUtilities.invokeAndWait(this::showCanvas);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException("Could not set up active rendering", e.getCause());
+    }
+    scaler = new ResolutionScaler(targetFps, resolutionScale);
+    if (pipelined) {
+      pipeline = new FramePipeline(renderer, this::takeWorld, sceneVersion::get);
     }
+    return new RenderLoop(this::renderFrame, targetFps);
+  }
+
+  private void showCanvas() {
+    canvas = new Canvas();
+    canvas.setBackground(panel.getBackground());
+    canvas.setIgnoreRepaint(true);
+    // Leave keyboard focus with the window, and pass clicks and motion up to it, so PlayerInput
+    // still hears everything
+    canvas.setFocusable(false);
+    MouseAdapter forwarder = new MouseAdapter() {
+      @Override
+      public void mousePressed(MouseEvent e) {
+        forward(e);
+      }
+
+      @Override
+      public void mouseReleased(MouseEvent e) {
+        forward(e);
+      }
+
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        forward(e);
+      }
+
+      @Override
+      public void mouseEntered(MouseEvent e) {
+        forward(e);
+      }
 
-    Polygon3[] sortedPolys = Polygon3.sort(polys.toArray(new Polygon3[0]));
-    panel.setDrawables(Arrays.stream(sortedPolys).filter(p -> p.minZ() >= 0)
-        .map(this::polygonToDrawable).toList());
+      @Override
+      public void mouseExited(MouseEvent e) {
+        forward(e);
+      }
+
+      @Override
+      public void mouseMoved(MouseEvent e) {
+        forward(e);
+      }
+
+      @Override
+      public void mouseDragged(MouseEvent e) {
+        forward(e);
+      }
+    };
+    canvas.addMouseListener(forwarder);
+    canvas.addMouseMotionListener(forwarder);
+
+    remove(panel);
+    add(canvas, BorderLayout.CENTER);
+    setIgnoreRepaint(true);
+    validate();
+    canvas.createBufferStrategy(2);
+    strategy = canvas.getBufferStrategy();
+  }
+
+  private void forward(MouseEvent e) {
+    dispatchEvent(SwingUtilities.convertMouseEvent(canvas, e, this));
+  }
+
+  /**
+   * Render one frame and flip it onto the Canvas. Called from the render loop's thread. With a
+   * FramePipeline, the frame was already projected on the pipeline's thread and only needs
+   * drawing here.
+   */
+  private void renderFrame() {
+    DrawList list;
+    if (pipeline != null) {
+      list = pipeline.latest();
+      if (list == null) {
+        return;
+      }
+    } else {
+      renderer.render(takeWorld(), backList);
+      list = backList;
+    }
+    double scale = scaler.scale();
+    do {
+      long start = System.nanoTime();
+      do {
+        Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+        drawList(list, g2d, scale);
+        g2d.dispose();
+      } while (strategy.contentsRestored());
+      scaler.record(System.nanoTime() - start);
+      strategy.show();
+    } while (strategy.contentsLost());
+    Toolkit.getDefaultToolkit().sync();
+  }
+
+  /**
+   * Draw a DrawList over the whole window at a scale. Below full scale, the list is drawn small
+   * into an offscreen image, then stretched over the window in one <code>drawImage</code>.
+   */
+  private void drawList(DrawList list, Graphics2D g2d, double scale) {
+    ZBufferRasterizer zbuffer = panel.rasterizer;
+    if (zbuffer != null) {
+      zbuffer.draw(list, g2d, scale);
+      return;
+    }
+    if (scale == 1) {
+      g2d.setColor(canvas.getBackground());
+      g2d.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+      list.draw(g2d);
+      return;
+    }
+    if (lowResolution == null) {
+      lowResolution = new BufferedImage(pixelsX, pixelsY, BufferedImage.TYPE_INT_RGB);
+    }
+    int width = Math.max(1, (int) Math.round(pixelsX * scale));
+    int height = Math.max(1, (int) Math.round(pixelsY * scale));
+    Graphics2D low = lowResolution.createGraphics();
+    low.setColor(canvas.getBackground());
+    low.fillRect(0, 0, width, height);
+    list.draw(low, scale);
+    low.dispose();
+    g2d.drawImage(lowResolution, 0, 0, pixelsX, pixelsY, 0, 0, width, height, null);
   }
 
   /**
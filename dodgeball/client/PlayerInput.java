@@ -1,19 +1,41 @@
 package dodgeball.client;
 
-import java.awt.MouseInfo;
+import dodgeball.game.Vector2;
+import java.awt.Component;
 import java.awt.Point;
+import java.awt.Robot;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Handle keyboard input for a client.
+ * Handle keyboard and mouse input for a client.
+ *
+ * <p>Mouse movement is gathered from motion events as they arrive rather than sampled: each
+ * event's distance from the one before it is added to a running total, which the network thread
+ * takes and resets in one step with <code>takeMouseMovement</code>. No movement between samples
+ * is lost or counted twice. The pointer is only moved back to the middle of the window when it
+ * gets near an edge, so the slow Robot call happens now and then instead of every input frame.
+ *
+ * <p>Events already queued when the pointer is moved back still describe where it was before,
+ * and the move's own event can come later still, so the move isn't trusted until it shows up.
+ * Until then, events nearer where the pointer was than where it was sent are counted from where
+ * it was; the first one nearer where it was sent is taken as the pointer having landed, and is
+ * measured from instead of counted.
  *
  * @author (your name)
  * @version (a version number or a date)
  */
-public class PlayerInput implements KeyListener, MouseListener {
+public class PlayerInput implements KeyListener, MouseListener, MouseMotionListener {
+  // How close to the window's edge, in pixels, the pointer can get before it's moved back to the
+  // middle
+  private static final int EDGE_MARGIN = 100;
+  // How long to wait, in milliseconds, for the pointer to show up where it was moved to
+  private static final long WARP_TIMEOUT = 250;
+
   private boolean wdown;
   private boolean adown;
   private boolean sdown;
@@ -22,13 +44,27 @@ public class PlayerInput implements KeyListener, MouseListener {
   private boolean cdown;
   private boolean leftClickDown;
   private boolean focused;
+  private final Robot robot;
+  // Mouse movement not yet taken, as x in the high 32 bits and y in the low 32 bits
+  private final AtomicLong mouseMovement = new AtomicLong();
+  // Where the last motion event put the pointer on screen. Only touched by the event thread.
+  private int lastX;
+  private int lastY;
+  private boolean lastKnown;
+  // Where the pointer was last moved to, while waiting for an event from there
+  private boolean warping;
+  private int warpX;
+  private int warpY;
+  private long warpTime;
 
   /**
    * Create a new player input handler and attach it to a <code>dodgeball.client.GameWindow</code>.
    *
    * @param window The game window that this should be attached to.
+   * @param robot  A Robot for moving the pointer back to the middle of the window.
    */
-  public PlayerInput(GameWindow window) {
+  public PlayerInput(GameWindow window, Robot robot) {
+    this.robot = robot;
     wdown = false;
     adown = false;
     sdown = false;
@@ -39,6 +75,7 @@ public class PlayerInput implements KeyListener, MouseListener {
     focused = true;
     window.addKeyListener(this);
     window.addMouseListener(this);
+    window.addMouseMotionListener(this);
   }
 
   public boolean wdown() {
@@ -77,14 +114,98 @@ public class PlayerInput implements KeyListener, MouseListener {
     leftClickDown = false;
   }
   
-  public double mouseX() {
-    Point location = MouseInfo.getPointerInfo().getLocation();
-    return location.getX();
+  /**
+   * Get how far the mouse has moved since the last call, and start counting again from zero.
+   * Safe to call from any thread.
+   *
+   * @return The movement in pixels, with x to the right and y downward.
+   */
+  public Vector2 takeMouseMovement() {
+    long movement = mouseMovement.getAndSet(0);
+    return new Vector2((int) (movement >> 32), (int) movement);
+  }
+
+  @Override
+  public void mouseMoved(MouseEvent event) {
+    int x = event.getXOnScreen();
+    int y = event.getYOnScreen();
+    if (warping && landed(x, y, event.getWhen())) {
+      warping = false;
+      lastX = x;
+      lastY = y;
+      return;
+    }
+    if (lastKnown) {
+      long delta = ((long) (x - lastX) << 32) | ((y - lastY) & 0xFFFFFFFFL);
+      mouseMovement.accumulateAndGet(delta, PlayerInput::addMovement);
+    }
+    lastX = x;
+    lastY = y;
+    lastKnown = true;
+    if (focused && !warping) {
+      recenterNearEdge(event.getComponent(), event.getWhen());
+    }
+  }
+
+  /**
+   * Decide whether an event that came in while the pointer was being moved back came from after
+   * the move. If the event is from before it, the pointer is still waiting to land, unless it's
+   * been waiting so long that the move must have been lost.
+   *
+   * @return <code>true</code> if the event should be measured from rather than counted.
+   */
+  private boolean landed(int x, int y, long when) {
+    long fromWarp = distanceSquared(x - warpX, y - warpY);
+    long fromLast = distanceSquared(x - lastX, y - lastY);
+    if (fromWarp < fromLast) {
+      return true;
+    }
+    if (when - warpTime > WARP_TIMEOUT) {
+      warping = false;
+    }
+    return false;
+  }
+
+  private static long distanceSquared(long dx, long dy) {
+    return dx * dx + dy * dy;
+  }
+
+  @Override
+  public void mouseDragged(MouseEvent event) {
+    mouseMoved(event);
   }
 
-  public double mouseY() {
-    Point location = MouseInfo.getPointerInfo().getLocation();
-    return location.getY();
+  /**
+   * Add two packed movements, keeping a carry out of y from spilling into x.
+   */
+  private static long addMovement(long a, long b) {
+    int x = (int) (a >> 32) + (int) (b >> 32);
+    int y = (int) a + (int) b;
+    return ((long) x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Move the pointer back to the middle of the window if it's close to an edge. Where it was sent
+   * is kept until an event from there arrives, so the jump isn't counted as movement.
+   */
+  private void recenterNearEdge(Component window, long when) {
+    if (!window.isShowing()) {
+      return;
+    }
+    Point corner = window.getLocationOnScreen();
+    int width = window.getWidth();
+    int height = window.getHeight();
+    int x = lastX - corner.x;
+    int y = lastY - corner.y;
+    if (x >= EDGE_MARGIN && x < width - EDGE_MARGIN
+        && y >= EDGE_MARGIN && y < height - EDGE_MARGIN) {
+      return;
+    }
+    warpX = corner.x + width / 2;
+    warpY = corner.y + height / 2;
+    warpTime = when;
+    warping = true;
+    robot.mouseMove(warpX, warpY);
   }
 
   @Override
@@ -153,11 +274,15 @@ public class PlayerInput implements KeyListener, MouseListener {
   @Override
   public void mouseExited(MouseEvent event) {
     focused = false;
+    lastKnown = false;
+    warping = false;
   }
   
   @Override
   public void mouseEntered(MouseEvent event) {
     focused = true;
+    lastKnown = false;
+    warping = false;
   }
   
   @Override
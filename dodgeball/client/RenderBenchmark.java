@@ -0,0 +1,260 @@
+package dodgeball.client;
+
+import dodgeball.game.Vector3;
+import dodgeball.render.Camera;
+import dodgeball.render.Model3;
+import dodgeball.render.ModelInstance;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measure how fast the client draws, without a display or a server. A made-up game is built from
+ * the real models, then drawn into an offscreen image frame after frame while the camera circles
+ * the arena, the same way the client draws: SceneRenderer culls, projects, sorts, and converts
+ * each frame to a DrawList, and the list is then painted or rasterized.
+ *
+ * <p>Run with <code>[players] [dodgeballs] [frames]</code>, all optional. The same system
+ * properties as the client choose how frames are drawn: <code>dodgeball.zbuffer</code> to
+ * rasterize with a depth buffer, and <code>dodgeball.scale</code> for the scale to draw at, which
+ * here defaults to 1 rather than adapting, so runs can be compared. The scene changes at the
+ * server's tick rate rather than every frame, and now and then the camera stops, so the
+ * renderer's caches get used the way they would be in a game.
+ */
+public class RenderBenchmark {
+  private static final int DEFAULT_PLAYERS = 30;
+  private static final int DEFAULT_DODGEBALLS = 100;
+  private static final int DEFAULT_FRAMES = 600;
+  private static final int WARMUP_FRAMES = 300;
+  // The size GameWindow draws at for the window the client opens
+  private static final int WIDTH = 1200;
+  private static final int HEIGHT = (int) (WIDTH / Math.sqrt(3));
+  // Frames drawn per network update, as at 60 frames per second against 30 updates
+  private static final int FRAMES_PER_TICK = 2;
+  // Ticks the camera takes to circle the arena, not counting the ticks it stands still
+  private static final int TICKS_PER_ORBIT = 180;
+  // The window background, which Swing panels default to
+  private static final Color BACKGROUND = new Color(0xEEEEEE);
+  private static final double EYE_HEIGHT = 1.5;
+
+  private final List<Model3> models = new ArrayList<Model3>();
+  private final Model3 player;
+  private final Model3 dodgeball;
+  private final double arenaRadius;
+  private final double[] playerStarts;
+  private final double[] dodgeballStarts;
+  private final boolean zbuffered;
+  private final ResolutionScaler scaler;
+
+  private final Camera camera;
+  private final SceneRenderer renderer;
+  private final DrawList list = new DrawList();
+  private final BufferedImage frame;
+  private final Graphics2D graphics;
+  private final ZBufferRasterizer rasterizer;
+  private BufferedImage lowResolution;
+  private List<ModelInstance> instances = List.of();
+  private long allocated; // by drawing only, not by making up the scene
+
+  private RenderBenchmark(int players, int dodgeballs) {
+    AssetRegistry assets = AssetRegistry.shared();
+    player = assets.model("Player").join();
+    dodgeball = assets.model("Dodgeball").join();
+    Model3 ground = assets.model("Ground").join();
+    models.add(player);
+    models.add(dodgeball);
+    models.add(ground);
+    arenaRadius = ground.boundingRadius() * 0.6;
+
+    Random random = new Random(2024);
+    playerStarts = new double[players * 3];
+    for (int i = 0; i < playerStarts.length; i++) {
+      playerStarts[i] = random.nextDouble();
+    }
+    dodgeballStarts = new double[dodgeballs * 3];
+    for (int i = 0; i < dodgeballStarts.length; i++) {
+      dodgeballStarts[i] = random.nextDouble();
+    }
+
+    zbuffered = Boolean.getBoolean("dodgeball.zbuffer");
+    scaler = new ResolutionScaler(0, Client.scaleSetting(1));
+    camera = new Camera(new Vector3(arenaRadius, EYE_HEIGHT, 0), new Vector3(-1, 0, 0));
+    renderer = new SceneRenderer(camera, WIDTH, HEIGHT);
+    renderer.setDepthSorted(!zbuffered);
+    renderer.setStaticInstances(List.of(new ModelInstance(ground, Vector3.ZERO)));
+    frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    graphics = frame.createGraphics();
+    rasterizer = zbuffered
+        ? new ZBufferRasterizer(WIDTH, HEIGHT, BACKGROUND.getRGB() & 0xFFFFFF) : null;
+  }
+
+  /**
+   * Run the benchmark and print what it measured.
+   *
+   * @param args The number of players, dodgeballs, and frames to draw, in that order. Each is
+   *             optional.
+   */
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    int players = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PLAYERS;
+    int dodgeballs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DODGEBALLS;
+    int frames = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_FRAMES;
+    RenderBenchmark benchmark = new RenderBenchmark(players, dodgeballs);
+    for (int i = 0; i < WARMUP_FRAMES; i++) {
+      benchmark.drawFrame(i);
+    }
+    benchmark.measure(frames);
+  }
+
+  private void measure(int frames) {
+    long hitsBefore = renderer.projectionCacheHits();
+    long missesBefore = renderer.projectionCacheMisses();
+    long rebuildsBefore = renderer.staticRebuilds();
+    long allocatedBefore = allocated;
+    long collectionsBefore = collections();
+
+    long sceneTotal = 0;
+    long sceneWorst = 0;
+    long rasterTotal = 0;
+    long rasterWorst = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < frames; i++) {
+      long[] times = drawFrame(WARMUP_FRAMES + i);
+      sceneTotal += times[0];
+      sceneWorst = Math.max(sceneWorst, times[0]);
+      rasterTotal += times[1];
+      rasterWorst = Math.max(rasterWorst, times[1]);
+    }
+    long elapsed = System.nanoTime() - start;
+    long drawAllocated = allocated - allocatedBefore;
+    long hits = renderer.projectionCacheHits() - hitsBefore;
+    long misses = renderer.projectionCacheMisses() - missesBefore;
+
+    System.out.println("Drew " + frames + " frames at " + WIDTH + "x" + HEIGHT + " ("
+        + (zbuffered ? "z-buffer" : "painter") + ", "
+        + (scaler.fixed() ? "scale " : "adaptive scale, ended at ") + scaler.scale() + "): "
+        + playerStarts.length / 3 + " players, " + dodgeballStarts.length / 3 + " dodgeballs, "
+        + models.get(2).length() + "-polygon ground");
+    System.out.printf("  frames per second: %.1f%n", frames * 1e9 / elapsed);
+    System.out.printf("  scene (cull, project, sort, convert): %.3f ms average, %.3f ms worst%n",
+        sceneTotal / 1e6 / frames, sceneWorst / 1e6);
+    System.out.printf("  raster: %.3f ms average, %.3f ms worst%n", rasterTotal / 1e6 / frames,
+        rasterWorst / 1e6);
+    if (allocatedBytes() >= 0) {
+      System.out.printf("  allocated on the drawing thread: %.1f KB per frame, %.2f MB/s%n",
+          drawAllocated / 1024.0 / frames, drawAllocated / 1048576.0 / (elapsed / 1e9));
+    }
+    System.out.println("  garbage collections: " + (collections() - collectionsBefore));
+    System.out.printf("  projection cache hit rate: %.1f%% (%d of %d)%n",
+        hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses), hits, hits + misses);
+    System.out.println("  static layer rebuilds: " + (renderer.staticRebuilds() - rebuildsBefore));
+  }
+
+  /**
+   * Move the scene to where it is at a frame, and draw it.
+   *
+   * @return How long building the DrawList took and how long drawing it took, in nanoseconds.
+   */
+  private long[] drawFrame(int index) {
+    if (index % FRAMES_PER_TICK == 0) {
+      tick(index / FRAMES_PER_TICK);
+    }
+    long bytes = allocatedBytes();
+    long start = System.nanoTime();
+    renderer.render(instances, list);
+    long built = System.nanoTime();
+    double scale = scaler.scale();
+    if (rasterizer != null) {
+      rasterizer.draw(list, graphics, scale);
+    } else if (scale == 1) {
+      graphics.setColor(BACKGROUND);
+      graphics.fillRect(0, 0, WIDTH, HEIGHT);
+      list.draw(graphics);
+    } else {
+      drawScaled(scale);
+    }
+    long drawn = System.nanoTime();
+    scaler.record(drawn - start);
+    allocated += allocatedBytes() - bytes;
+    return new long[] { built - start, drawn - built };
+  }
+
+  /**
+   * Paint the list small and stretch it over the frame, as GameWindow does below full scale.
+   */
+  private void drawScaled(double scale) {
+    if (lowResolution == null) {
+      lowResolution = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+    int width = Math.max(1, (int) Math.round(WIDTH * scale));
+    int height = Math.max(1, (int) Math.round(HEIGHT * scale));
+    Graphics2D low = lowResolution.createGraphics();
+    low.setColor(BACKGROUND);
+    low.fillRect(0, 0, width, height);
+    list.draw(low, scale);
+    low.dispose();
+    graphics.drawImage(lowResolution, 0, 0, WIDTH, HEIGHT, 0, 0, width, height, null);
+  }
+
+  /**
+   * Play one network update: move the camera along its path and rebuild the instance list, as
+   * Client does for each update from the server. Half the players stand still, and the rest walk
+   * in circles; the dodgeballs fly back and forth across the arena.
+   */
+  private void tick(int tick) {
+    // Move for 15 ticks, then stand still for 5
+    int moving = tick / 20 * 15 + Math.min(tick % 20, 15);
+    double angle = 2 * Math.PI * moving / TICKS_PER_ORBIT;
+    camera.setPosition(new Vector3(arenaRadius * Math.cos(angle), EYE_HEIGHT,
+        arenaRadius * Math.sin(angle)));
+    camera.setDirection(new Vector3(-Math.cos(angle), -0.1, -Math.sin(angle)));
+
+    List<ModelInstance> next = new ArrayList<ModelInstance>();
+    for (int i = 0; i < playerStarts.length; i += 3) {
+      double x = (playerStarts[i] * 2 - 1) * arenaRadius;
+      double z = (playerStarts[i + 1] * 2 - 1) * arenaRadius;
+      double yaw = playerStarts[i + 2] * 360;
+      if (i / 3 % 2 == 1) {
+        double walk = tick * 0.05 + playerStarts[i + 2] * 2 * Math.PI;
+        x += Math.cos(walk) * 2;
+        z += Math.sin(walk) * 2;
+        yaw = Math.toDegrees(walk);
+      }
+      next.add(new ModelInstance(player, new Vector3(x, 1, z), yaw));
+    }
+    for (int i = 0; i < dodgeballStarts.length; i += 3) {
+      double phase = dodgeballStarts[i] * 2 * Math.PI + tick * 0.03;
+      double x = Math.sin(phase) * arenaRadius;
+      double z = (dodgeballStarts[i + 1] * 2 - 1) * arenaRadius;
+      next.add(new ModelInstance(dodgeball, new Vector3(x, 0.5 + dodgeballStarts[i + 2] * 2, z)));
+    }
+    instances = next;
+  }
+
+  /**
+   * The bytes allocated so far by this thread, where the JVM reports it.
+   *
+   * @return The byte count, or -1 if it isn't available.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  private static long collections() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(collector.getCollectionCount(), 0);
+    }
+    return count;
+  }
+}
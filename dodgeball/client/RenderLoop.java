@@ -0,0 +1,141 @@
+package dodgeball.client;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs frames back to back on the calling thread at a target rate, independently of the network
+ * tick. Each frame is paced by parking until shortly before its deadline and then spinning the
+ * rest of the way, since parking alone routinely oversleeps by a millisecond or more. A loop that
+ * falls behind drops the missed frames rather than rushing to catch up.
+ *
+ * <p>Frame times are accumulated over one-second windows; the figures for the last complete
+ * window can be read from any thread.
+ */
+public class RenderLoop implements Runnable {
+  // How long before a deadline to stop parking and start spinning
+  private static final long SPIN_NANOS = 1_500_000L;
+  private static final long WINDOW_NANOS = 1_000_000_000L;
+
+  private final Runnable frame;
+  private final long periodNanos;
+  private volatile boolean running;
+
+  // The window in progress. Only touched by the loop's thread.
+  private long windowStart;
+  private int windowFrames;
+  private long windowWorkNanos;
+  private long windowWorstNanos;
+
+  // The last complete window
+  private volatile double framesPerSecond;
+  private volatile double averageFrameMillis;
+  private volatile double worstFrameMillis;
+
+  /**
+   * Create a loop that runs a frame at a fixed rate.
+   *
+   * @param frame     The work to do each frame, usually rendering and presenting one image.
+   * @param targetFps The number of frames to aim for each second, or 0 to run as fast as
+   *                  possible.
+   * @throws IllegalArgumentException if <code>targetFps</code> is negative.
+   */
+  public RenderLoop(Runnable frame, int targetFps) {
+    if (targetFps < 0) {
+      throw new IllegalArgumentException("Target frame rate must not be negative: " + targetFps);
+    }
+    this.frame = frame;
+    periodNanos = targetFps == 0 ? 0 : 1_000_000_000L / targetFps;
+    running = true;
+  }
+
+  /**
+   * Run frames until <code>stop</code> is called.
+   */
+  @Override
+  public void run() {
+    long deadline = System.nanoTime();
+    windowStart = deadline;
+    while (running) {
+      long start = System.nanoTime();
+      frame.run();
+      long end = System.nanoTime();
+      record(end - start, end);
+
+      if (periodNanos > 0) {
+        deadline += periodNanos;
+        if (end - deadline > periodNanos) {
+          // More than a whole frame late; start the schedule over from now
+          deadline = end;
+        }
+        sleepUntil(deadline);
+      }
+    }
+  }
+
+  /**
+   * Ask the loop to finish after the frame in progress.
+   */
+  public void stop() {
+    running = false;
+  }
+
+  public boolean running() {
+    return running;
+  }
+
+  /**
+   * Get how many frames ran in the last complete second.
+   *
+   * @return The frame rate, or 0 if the loop hasn't run for a second yet.
+   */
+  public double framesPerSecond() {
+    return framesPerSecond;
+  }
+
+  /**
+   * Get how long the average frame took to run in the last complete second, not counting time
+   * spent waiting for the next frame.
+   *
+   * @return The average frame time in milliseconds.
+   */
+  public double averageFrameMillis() {
+    return averageFrameMillis;
+  }
+
+  /**
+   * Get how long the slowest frame took to run in the last complete second.
+   *
+   * @return The longest frame time in milliseconds.
+   */
+  public double worstFrameMillis() {
+    return worstFrameMillis;
+  }
+
+  private void record(long workNanos, long now) {
+    windowFrames++;
+    windowWorkNanos += workNanos;
+    windowWorstNanos = Math.max(windowWorstNanos, workNanos);
+
+    long elapsed = now - windowStart;
+    if (elapsed >= WINDOW_NANOS) {
+      framesPerSecond = windowFrames * 1e9 / elapsed;
+      averageFrameMillis = windowWorkNanos / 1e6 / windowFrames;
+      worstFrameMillis = windowWorstNanos / 1e6;
+      windowStart = now;
+      windowFrames = 0;
+      windowWorkNanos = 0;
+      windowWorstNanos = 0;
+    }
+  }
+
+  private void sleepUntil(long deadline) {
+    long remaining = deadline - System.nanoTime();
+    while (remaining > SPIN_NANOS && running) {
+      LockSupport.parkNanos(remaining - SPIN_NANOS);
+      remaining = deadline - System.nanoTime();
+    }
+    while (deadline - System.nanoTime() > 0) {
+      Thread.onSpinWait();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package dodgeball.client;
+
+/**
+ * Picks the scale to draw each frame at, so drawing keeps inside a frame time budget. Filling
+ * pixels is most of the cost of drawing, and the number of pixels goes with the square of the
+ * scale, so when frames run long the scale is cut by the square root of how far over budget they
+ * are, and raised the same way once they have time to spare.
+ *
+ * <p>Frame times are smoothed, and the scale only changes once the smoothed time has settled at
+ * the current one and the change would be big enough to matter, so it doesn't hunt back and forth
+ * every frame. A fixed scale can be given instead, which turns all of this off.
+ */
+public class ResolutionScaler {
+  public static final double MIN_SCALE = 0.5;
+  public static final double MAX_SCALE = 1;
+  // Frame rate to budget for when the frame rate isn't capped
+  private static final int UNCAPPED_TARGET_FPS = 60;
+  // Fraction of the frame budget drawing should use, leaving the rest for everything else
+  private static final double HEADROOM = 0.8;
+  // Weight of each new frame time in the running average
+  private static final double SMOOTHING = 0.1;
+  // Frames to measure at a new scale before judging it
+  private static final int SETTLE_FRAMES = 20;
+  // Smallest change of scale worth making
+  private static final double MIN_CHANGE = 0.05;
+
+  private final long budgetNanos;
+  private final boolean fixed;
+  private volatile double scale;
+  private double averageNanos;
+  private int framesAtScale;
+
+  /**
+   * Create a ResolutionScaler.
+   *
+   * @param targetFps  The frame rate to budget for, or 0 if the frame rate isn't capped.
+   * @param fixedScale The scale to always draw at, in [<code>MIN_SCALE</code>,
+   *                   <code>MAX_SCALE</code>], or 0 to adapt to frame times.
+   * @throws IllegalArgumentException if <code>targetFps</code> is negative or
+   *                                  <code>fixedScale</code> is out of range.
+   */
+  public ResolutionScaler(int targetFps, double fixedScale) {
+    if (targetFps < 0) {
+      throw new IllegalArgumentException("Target frame rate must not be negative: " + targetFps);
+    }
+    if (fixedScale != 0 && !(fixedScale >= MIN_SCALE && fixedScale <= MAX_SCALE)) {
+      throw new IllegalArgumentException("Scale must be 0 or in [" + MIN_SCALE + ", " + MAX_SCALE
+          + "]: " + fixedScale);
+    }
+    budgetNanos = (long) (1e9 * HEADROOM / (targetFps == 0 ? UNCAPPED_TARGET_FPS : targetFps));
+    fixed = fixedScale != 0;
+    scale = fixed ? fixedScale : MAX_SCALE;
+  }
+
+  /**
+   * Get the scale the next frame should be drawn at.
+   *
+   * @return The scale, in [<code>MIN_SCALE</code>, <code>MAX_SCALE</code>].
+   */
+  public double scale() {
+    return scale;
+  }
+
+  public boolean fixed() {
+    return fixed;
+  }
+
+  /**
+   * Account for how long a frame took to draw at the current scale, and adjust the scale if it's
+   * time to. Called from the thread doing the drawing.
+   *
+   * @param drawNanos How long the frame took to draw.
+   */
+  public void record(long drawNanos) {
+    if (fixed) {
+      return;
+    }
+    framesAtScale++;
+    averageNanos = framesAtScale == 1 ? drawNanos
+        : averageNanos + (drawNanos - averageNanos) * SMOOTHING;
+    if (framesAtScale < SETTLE_FRAMES) {
+      return;
+    }
+    double ideal = scale * Math.sqrt(budgetNanos / Math.max(averageNanos, 1));
+    ideal = Math.max(MIN_SCALE, Math.min(MAX_SCALE, ideal));
+    if (Math.abs(ideal - scale) >= MIN_CHANGE || (ideal == MAX_SCALE && scale != MAX_SCALE)) {
+      scale = ideal;
+      framesAtScale = 0;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package dodgeball.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size queue for handing objects from one thread to one other thread without locks. The
+ * slots are allocated up front, so passing objects through never allocates. Only one thread may
+ * call <code>offer</code> and only one thread may call <code>poll</code>; they can be different
+ * threads.
+ *
+ * @param <T> The type of object the buffer holds.
+ */
+public class RingBuffer<T> {
+  private final Object[] slots;
+  private final int mask;
+  // Both only ever grow. The consumer owns head and the producer owns tail; each publishes its
+  // own with a release write, so the slot it just touched is visible before the index moves.
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Create an empty RingBuffer.
+   *
+   * @param capacity The most objects the buffer can hold at once. Rounded up to a power of two.
+   * @throws IllegalArgumentException if <code>capacity</code> is not positive.
+   */
+  public RingBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    slots = new Object[size];
+    mask = size - 1;
+  }
+
+  /**
+   * Add an object to the back of the buffer. Called from the producing thread only.
+   *
+   * @param item The object to add.
+   * @return <code>true</code> if it was added, <code>false</code> if the buffer was full.
+   */
+  public boolean offer(T item) {
+    long t = tail.get();
+    if (t - head.get() == slots.length) {
+      return false;
+    }
+    slots[(int) t & mask] = item;
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Take the object at the front of the buffer. Called from the consuming thread only.
+   *
+   * @return The oldest object in the buffer, or <code>null</code> if it was empty.
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long h = head.get();
+    if (h == tail.get()) {
+      return null;
+    }
+    int slot = (int) h & mask;
+    T item = (T) slots[slot];
+    slots[slot] = null;
+    head.lazySet(h + 1);
+    return item;
+  }
+}
@@ -0,0 +1,589 @@
+package dodgeball.client;
+
+import dodgeball.game.Vector3;
+import dodgeball.render.BspTree;
+import dodgeball.render.Camera;
+import dodgeball.render.DepthSorter;
+import dodgeball.render.Model3;
+import dodgeball.render.ModelInstance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns a list of model instances into a DrawList for one frame: culls, projects, depth sorts,
+ * and converts to screen coordinates. Every buffer is kept between frames, so a steady scene
+ * renders without allocating. A SceneRenderer should only be used from one thread.
+ *
+ * <p>Models with detail levels are drawn at a level picked from how big they look: full detail
+ * while their bounding sphere is at least <code>DETAIL_PIXELS</code> across in radius, and one
+ * level coarser each time that halves. Each instance only changes level once its size is well
+ * past the boundary, so one hovering near it doesn't flicker between the two.
+ *
+ * <p>Static instances, like the ground, are given separately with
+ * <code>setStaticInstances</code>. They're projected and sorted into a layer of their own that is
+ * kept from frame to frame, and only rebuilt once the camera has moved or turned by more than a
+ * small tolerance. Each frame's dynamic polygons are then merged into that layer by depth, so a
+ * frame where the camera holds still only pays for what actually moves. When sorting, each static
+ * instance is drawn in the order its model's BSP tree gives for the camera's position rather than
+ * by depth key, so static polygons never overlap wrongly; the instances themselves go farthest
+ * first.
+ *
+ * <p>Each moving instance's projection is also kept from one frame to the next, along with the
+ * transform and camera pose it was worked out for. An instance that is exactly where it was last
+ * frame, seen from exactly the same place, reuses its projected vertices and visible polygons
+ * instead of being culled and projected again. How often that happens is counted by
+ * <code>projectionCacheHits</code> and <code>projectionCacheMisses</code>.
+ *
+ * <p>The depth sort is only needed when the DrawList is painted back to front. A renderer that
+ * depth tests every pixel, like <code>ZBufferRasterizer</code>, can turn it off with
+ * <code>setDepthSorted(false)</code> and take the polygons in whatever order they were culled.
+ */
+public class SceneRenderer {
+  // Keeps a vertex sitting on the camera from getting an infinite inverse depth
+  private static final double MIN_DEPTH = 1e-12;
+  // Projected radius, in pixels, below which models drop to their first coarser level
+  private static final double DETAIL_PIXELS = 40;
+  // How far past a level boundary an instance has to go before it switches
+  private static final double LEVEL_HYSTERESIS = 0.15;
+  // How far the camera can move, and how much its direction can change, before the static layer
+  // is rebuilt. Both are well under a pixel's worth at the distances the arena is seen from.
+  private static final double POSITION_TOLERANCE = 1e-3;
+  private static final double DIRECTION_TOLERANCE = 1e-4;
+
+  private Camera camera;
+  private int halfWidth;
+  private int halfHeight;
+  private double scaleFactorX;
+  private double scaleFactorY;
+  private DepthSorter sorter;
+  private boolean depthSorted;
+
+  // Projected vertices of every visible instance this frame, back to back
+  private double[] projected = new double[3072];
+  private int projectedLength;
+  // One entry per polygon that survived culling
+  private Model3[] polygonModels = new Model3[256];
+  private int[] polygonIndices = new int[256];
+  private double[][] polygonSources = new double[256][]; // the array holding its vertices
+  private int[] polygonBases = new int[256]; // where the polygon's instance starts in its source
+  private double[] polygonDepths = new double[256];
+  private int polygonCount;
+  private int[] visible = new int[256];
+  // The level last picked for each position in the instance list, and which model it was for.
+  // Instances are rebuilt by every network update, so their list position is what stays stable.
+  private Model3[] levelModels = new Model3[64];
+  private int[] levels = new int[64];
+  // Each list position's projection from the frames before, and the camera pose it was for
+  private CachedProjection[] cachedProjections = new CachedProjection[64];
+  private double[] cachedPose = new double[6];
+  private long projectionCacheHits;
+  private long projectionCacheMisses;
+
+  private volatile List<ModelInstance> staticInstances = List.of();
+  // The static layer and what it was built from
+  private DrawList staticList = new DrawList();
+  private double[] staticDepths = new double[256];
+  private List<ModelInstance> staticBuiltFrom;
+  private boolean staticBuiltSorted;
+  private double[] staticPose = new double[6];
+  private long staticRebuilds;
+  private List<ModelInstance> staticMeshes = List.of(); // each static instance's BSP mesh, placed
+  private List<ModelInstance> staticMeshesFrom;
+  private int[] staticOrder = new int[16];
+  private double[] staticDistances = new double[16];
+  private int[] bspOrder = new int[256];
+  private int[] bspSlots = new int[256];
+  private DepthSorter runSorter = new DepthSorter(false);
+  private int[] runSlots = new int[256];
+  private double[] runDepths = new double[256];
+
+  /**
+   * Create a renderer for a screen of the given size.
+   *
+   * @param camera The camera to render through.
+   * @param width  The width of the screen in pixels.
+   * @param height The height of the screen in pixels.
+   */
+  public SceneRenderer(Camera camera, int width, int height) {
+    this.camera = camera;
+    halfWidth = width / 2;
+    halfHeight = height / 2;
+    // 90 degree by 60 degree aspect ratio
+    scaleFactorX = halfWidth / Camera.VIEW_HALF_WIDTH;
+    scaleFactorY = halfHeight / Camera.VIEW_HALF_HEIGHT;
+    sorter = new DepthSorter(true);
+    depthSorted = true;
+  }
+
+  public Camera camera() {
+    return camera;
+  }
+
+  public DepthSorter sorter() {
+    return sorter;
+  }
+
+  public boolean depthSorted() {
+    return depthSorted;
+  }
+
+  /**
+   * Choose whether the DrawList should be sorted back to front.
+   *
+   * @param depthSorted <code>true</code> to sort polygons far to near, <code>false</code> to leave
+   *                    them in an arbitrary order.
+   */
+  public void setDepthSorted(boolean depthSorted) {
+    this.depthSorted = depthSorted;
+  }
+
+  /**
+   * Set the instances that never move. They're drawn under every frame, merged by depth with the
+   * instances given to <code>render</code>. Safe to call from any thread.
+   *
+   * @param instances The static instances. The list is copied.
+   */
+  public void setStaticInstances(List<ModelInstance> instances) {
+    staticInstances = List.copyOf(instances);
+  }
+
+  /**
+   * Get how many times the static layer has been projected and sorted.
+   *
+   * @return The number of rebuilds so far.
+   */
+  public long staticRebuilds() {
+    return staticRebuilds;
+  }
+
+  /**
+   * Get how many times a moving instance's projection was reused from the frame before.
+   *
+   * @return The number of cache hits so far.
+   */
+  public long projectionCacheHits() {
+    return projectionCacheHits;
+  }
+
+  /**
+   * Get how many times a moving instance had to be projected because it or the camera had moved,
+   * or because it wasn't in the frame before.
+   *
+   * @return The number of cache misses so far.
+   */
+  public long projectionCacheMisses() {
+    return projectionCacheMisses;
+  }
+
+  /**
+   * Render a frame.
+   *
+   * @param instances The moving instances in the scene.
+   * @param out       The DrawList to fill. Cleared first.
+   */
+  public void render(List<ModelInstance> instances, DrawList out) {
+    updateStaticLayer();
+
+    projectedLength = 0;
+    polygonCount = 0;
+    if (levels.length < instances.size()) {
+      levelModels = Arrays.copyOf(levelModels, Math.max(instances.size(), levels.length * 2));
+      levels = Arrays.copyOf(levels, levelModels.length);
+      cachedProjections = Arrays.copyOf(cachedProjections, levelModels.length);
+    }
+    boolean cameraStill = updateCachedPose();
+    for (int i = 0; i < instances.size(); i++) {
+      ModelInstance instance = pickLevel(i, instances.get(i));
+      CachedProjection cached = cachedProjections[i];
+      if (cached == null) {
+        cached = new CachedProjection();
+        cachedProjections[i] = cached;
+      }
+      if (cameraStill && cached.isFor(instance)) {
+        projectionCacheHits++;
+      } else {
+        projectionCacheMisses++;
+        cached.update(instance);
+      }
+      addCached(cached);
+    }
+
+    int[] order = depthSorted ? sorter.sort(polygonDepths, polygonCount) : null;
+
+    out.clear();
+    int staticIndex = 0;
+    int staticLength = staticList.length();
+    for (int i = 0; i < polygonCount; i++) {
+      int polygon = order != null ? order[i] : i;
+      if (order != null) {
+        // Dynamic polygons run far to near; draw the static ones up to the last that's farther
+        while (staticIndex < staticLength && staticDepths[staticIndex] >= polygonDepths[polygon]) {
+          out.addPolygon(staticList, staticIndex++);
+        }
+      }
+      emit(polygon, out);
+    }
+    while (staticIndex < staticLength) {
+      out.addPolygon(staticList, staticIndex++);
+    }
+  }
+
+  /**
+   * Rebuild the static layer if the static instances have changed, the camera has moved past the
+   * tolerances, or the sort has been turned on or off since it was last built.
+   */
+  private void updateStaticLayer() {
+    List<ModelInstance> statics = staticInstances;
+    Vector3 position = camera.position();
+    Vector3 direction = camera.direction();
+    if (statics == staticBuiltFrom && depthSorted == staticBuiltSorted
+        && Math.abs(position.xcoord - staticPose[0]) <= POSITION_TOLERANCE
+        && Math.abs(position.ycoord - staticPose[1]) <= POSITION_TOLERANCE
+        && Math.abs(position.zcoord - staticPose[2]) <= POSITION_TOLERANCE
+        && Math.abs(direction.xcoord - staticPose[3]) <= DIRECTION_TOLERANCE
+        && Math.abs(direction.ycoord - staticPose[4]) <= DIRECTION_TOLERANCE
+        && Math.abs(direction.zcoord - staticPose[5]) <= DIRECTION_TOLERANCE) {
+      return;
+    }
+    staticBuiltFrom = statics;
+    staticBuiltSorted = depthSorted;
+    staticPose[0] = position.xcoord;
+    staticPose[1] = position.ycoord;
+    staticPose[2] = position.zcoord;
+    staticPose[3] = direction.xcoord;
+    staticPose[4] = direction.ycoord;
+    staticPose[5] = direction.zcoord;
+    staticRebuilds++;
+
+    projectedLength = 0;
+    polygonCount = 0;
+    staticList.clear();
+    if (!depthSorted) {
+      for (int i = 0; i < statics.size(); i++) {
+        collect(statics.get(i));
+      }
+      for (int i = 0; i < polygonCount; i++) {
+        addStatic(i);
+      }
+      return;
+    }
+
+    if (staticMeshes.size() != statics.size() || statics != staticMeshesFrom) {
+      List<ModelInstance> meshes = new ArrayList<ModelInstance>();
+      for (ModelInstance instance : statics) {
+        meshes.add(new ModelInstance(instance.model().bsp().mesh(), instance.position(),
+            instance.yaw()));
+      }
+      staticMeshes = meshes;
+      staticMeshesFrom = statics;
+    }
+    int count = orderStatics(statics, position);
+    for (int k = 0; k < count; k++) {
+      int i = staticOrder[k];
+      ModelInstance instance = statics.get(i);
+      BspTree tree = instance.model().bsp();
+      int first = polygonCount;
+      collect(staticMeshes.get(i));
+
+      int meshLength = tree.mesh().length();
+      if (bspSlots.length < meshLength) {
+        bspSlots = new int[Math.max(meshLength, bspSlots.length * 2)];
+        bspOrder = new int[bspSlots.length];
+      }
+      Arrays.fill(bspSlots, 0, meshLength, -1);
+      for (int slot = first; slot < polygonCount; slot++) {
+        bspSlots[polygonIndices[slot]] = slot;
+      }
+
+      // Move the camera into the model's space: undo the translation, then the yaw
+      Vector3 center = instance.model().center();
+      double x0 = position.xcoord - instance.position().xcoord - center.xcoord;
+      double z0 = position.zcoord - instance.position().zcoord - center.zcoord;
+      double sin = instance.sinYaw();
+      double cos = instance.cosYaw();
+      int ordered = tree.order(x0 * cos - z0 * sin + center.xcoord,
+          position.ycoord - instance.position().ycoord, x0 * sin + z0 * cos + center.zcoord,
+          bspOrder);
+      // Each node's polygons come out together. They can't overlap, so sort them by depth to
+      // keep the layer as close to far-to-near as the tree allows.
+      int runLength = 0;
+      int runNode = -1;
+      for (int j = 0; j <= ordered; j++) {
+        int slot = j < ordered ? bspSlots[bspOrder[j]] : -1;
+        if (j == ordered || (slot >= 0 && tree.node(bspOrder[j]) != runNode)) {
+          int[] order = runSorter.sort(runDepths, runLength);
+          for (int r = 0; r < runLength; r++) {
+            addStatic(runSlots[order[r]]);
+          }
+          runLength = 0;
+          if (j == ordered) {
+            break;
+          }
+          runNode = tree.node(bspOrder[j]);
+        }
+        if (slot >= 0) {
+          if (runSlots.length == runLength) {
+            runSlots = Arrays.copyOf(runSlots, runLength * 2);
+            runDepths = Arrays.copyOf(runDepths, runLength * 2);
+          }
+          runSlots[runLength] = slot;
+          runDepths[runLength] = polygonDepths[slot];
+          runLength++;
+        }
+      }
+    }
+    // Turn each depth into the farthest depth at or after it, so the merge in render never
+    // leaves a far static polygon to be drawn over a nearer dynamic one
+    for (int i = staticList.length() - 2; i >= 0; i--) {
+      staticDepths[i] = Math.max(staticDepths[i], staticDepths[i + 1]);
+    }
+  }
+
+  /**
+   * Add a collected polygon to the end of the static layer.
+   */
+  private void addStatic(int polygon) {
+    int index = staticList.length();
+    if (staticDepths.length <= index) {
+      staticDepths = Arrays.copyOf(staticDepths, Math.max(index + 1, staticDepths.length * 2));
+    }
+    staticDepths[index] = polygonDepths[polygon];
+    emit(polygon, staticList);
+  }
+
+  /**
+   * Order the static instances farthest first by the distance to their positions.
+   *
+   * @return The number of instances, whose indices are now in <code>staticOrder</code>.
+   */
+  private int orderStatics(List<ModelInstance> statics, Vector3 position) {
+    int count = statics.size();
+    if (staticOrder.length < count) {
+      staticOrder = new int[Math.max(count, staticOrder.length * 2)];
+      staticDistances = new double[staticOrder.length];
+    }
+    for (int i = 0; i < count; i++) {
+      Vector3 placed = statics.get(i).position();
+      double dx = placed.xcoord - position.xcoord;
+      double dy = placed.ycoord - position.ycoord;
+      double dz = placed.zcoord - position.zcoord;
+      staticDistances[i] = dx * dx + dy * dy + dz * dz;
+      int j = i;
+      while (j > 0 && staticDistances[staticOrder[j - 1]] < staticDistances[i]) {
+        staticOrder[j] = staticOrder[j - 1];
+        j--;
+      }
+      staticOrder[j] = i;
+    }
+    return count;
+  }
+
+  /**
+   * Convert one collected polygon to screen coordinates and add it to a DrawList.
+   */
+  private void emit(int polygon, DrawList out) {
+    Model3 model = polygonModels[polygon];
+    int index = polygonIndices[polygon];
+    double[] projected = polygonSources[polygon];
+    int base = polygonBases[polygon];
+    int[] indices = model.indices();
+    out.startPolygon(model.color(index));
+    for (int j = model.polygonStart(index); j < model.polygonStart(index + 1); j++) {
+      int vertex = base + indices[j] * 3;
+      // Culling already dropped polygons behind the camera, so the depth is never negative
+      double forward = Math.sqrt(Math.max(projected[vertex + 2], MIN_DEPTH));
+      out.addPoint((int) (projected[vertex] * scaleFactorX) + halfWidth,
+          halfHeight - (int) (projected[vertex + 1] * scaleFactorY), (float) (1 / forward));
+    }
+  }
+
+  /**
+   * Choose which detail level to draw an instance at.
+   *
+   * @param slot     The instance's position in the list, which remembers its last level.
+   * @param instance The instance at full detail.
+   * @return The instance at the chosen level.
+   */
+  private ModelInstance pickLevel(int slot, ModelInstance instance) {
+    Model3 model = instance.model();
+    int count = model.levelCount();
+    if (count == 1) {
+      levelModels[slot] = null;
+      return instance;
+    }
+    double pixels = camera.screenRadius(instance) * halfWidth;
+    int level = levelFor(pixels, count);
+    if (levelModels[slot] == model) {
+      int current = levels[slot];
+      if (levelFor(pixels * (1 + LEVEL_HYSTERESIS), count) <= current
+          && current <= levelFor(pixels * (1 - LEVEL_HYSTERESIS), count)) {
+        level = current;
+      }
+    }
+    levelModels[slot] = model;
+    levels[slot] = level;
+    return instance.level(level);
+  }
+
+  /**
+   * The level to draw a model at, ignoring hysteresis.
+   */
+  private static int levelFor(double pixels, int count) {
+    if (pixels >= DETAIL_PIXELS) {
+      return 0;
+    }
+    if (pixels <= 0) {
+      return count - 1;
+    }
+    int level = 1 + (int) Math.floor(Math.log(DETAIL_PIXELS / pixels) / Math.log(2));
+    return Math.min(level, count - 1);
+  }
+
+  /**
+   * Cull and project one instance, and record each of its visible polygons with its depth.
+   */
+  private void collect(ModelInstance instance) {
+    if (!camera.canSee(instance)) {
+      return;
+    }
+    Model3 model = instance.model();
+    int base = projectedLength;
+    int needed = base + model.vertexCount() * 3;
+    if (needed > projected.length) {
+      projected = Arrays.copyOf(projected, Math.max(needed, projected.length * 2));
+    }
+    camera.project(instance, projected, base);
+    projectedLength = needed;
+
+    if (visible.length < model.length()) {
+      visible = new int[model.length()];
+    }
+    int count = camera.visiblePolygons(instance, projected, base, visible);
+    ensurePolygonCapacity(polygonCount + count);
+
+    for (int i = 0; i < count; i++) {
+      polygonModels[polygonCount] = model;
+      polygonIndices[polygonCount] = visible[i];
+      polygonSources[polygonCount] = projected;
+      polygonBases[polygonCount] = base;
+      polygonDepths[polygonCount] = minDepth(model, visible[i], projected, base);
+      polygonCount++;
+    }
+  }
+
+  /**
+   * Record every visible polygon of a cached projection, just as <code>collect</code> would have.
+   */
+  private void addCached(CachedProjection cached) {
+    ensurePolygonCapacity(polygonCount + cached.count);
+    for (int i = 0; i < cached.count; i++) {
+      polygonModels[polygonCount] = cached.model;
+      polygonIndices[polygonCount] = cached.polygons[i];
+      polygonSources[polygonCount] = cached.projected;
+      polygonBases[polygonCount] = 0;
+      polygonDepths[polygonCount] = cached.depths[i];
+      polygonCount++;
+    }
+  }
+
+  private void ensurePolygonCapacity(int needed) {
+    if (needed > polygonIndices.length) {
+      int capacity = Math.max(needed, polygonIndices.length * 2);
+      polygonModels = Arrays.copyOf(polygonModels, capacity);
+      polygonIndices = Arrays.copyOf(polygonIndices, capacity);
+      polygonSources = Arrays.copyOf(polygonSources, capacity);
+      polygonBases = Arrays.copyOf(polygonBases, capacity);
+      polygonDepths = Arrays.copyOf(polygonDepths, capacity);
+    }
+  }
+
+  /**
+   * The depth of a polygon's nearest vertex, which is what it's sorted by.
+   */
+  private static double minDepth(Model3 model, int polygon, double[] projected, int base) {
+    int[] indices = model.indices();
+    double minZ = Double.MAX_VALUE;
+    for (int j = model.polygonStart(polygon); j < model.polygonStart(polygon + 1); j++) {
+      minZ = Math.min(minZ, projected[base + indices[j] * 3 + 2]);
+    }
+    return minZ;
+  }
+
+  /**
+   * Compare the camera's pose to the one the cached projections were made for, and remember it
+   * for next frame.
+   *
+   * @return <code>true</code> if the camera is exactly where it was and facing exactly the same
+   *         way.
+   */
+  private boolean updateCachedPose() {
+    Vector3 position = camera.position();
+    Vector3 direction = camera.direction();
+    boolean still = position.xcoord == cachedPose[0] && position.ycoord == cachedPose[1]
+        && position.zcoord == cachedPose[2] && direction.xcoord == cachedPose[3]
+        && direction.ycoord == cachedPose[4] && direction.zcoord == cachedPose[5];
+    cachedPose[0] = position.xcoord;
+    cachedPose[1] = position.ycoord;
+    cachedPose[2] = position.zcoord;
+    cachedPose[3] = direction.xcoord;
+    cachedPose[4] = direction.ycoord;
+    cachedPose[5] = direction.zcoord;
+    return still;
+  }
+
+  /**
+   * One moving instance's projected vertices and visible polygons, with the model and transform
+   * they were worked out for. Its arrays only grow, so refreshing it doesn't allocate once it's
+   * seen the biggest model.
+   */
+  private class CachedProjection {
+    private Model3 model;
+    private double x;
+    private double y;
+    private double z;
+    private double yaw;
+    private double[] projected = new double[0];
+    private int[] polygons = new int[0];
+    private double[] depths = new double[0];
+    private int count;
+
+    /**
+     * Check whether this holds the projection of a given instance: the same model, placed and
+     * turned exactly the same way. The camera is checked separately.
+     */
+    boolean isFor(ModelInstance instance) {
+      Vector3 position = instance.position();
+      return model == instance.model() && position.xcoord == x && position.ycoord == y
+          && position.zcoord == z && instance.yaw() == yaw;
+    }
+
+    /**
+     * Cull and project an instance through the camera and keep the result.
+     */
+    void update(ModelInstance instance) {
+      model = instance.model();
+      Vector3 position = instance.position();
+      x = position.xcoord;
+      y = position.ycoord;
+      z = position.zcoord;
+      yaw = instance.yaw();
+      count = 0;
+      if (!camera.canSee(instance)) {
+        return;
+      }
+      if (projected.length < model.vertexCount() * 3) {
+        projected = new double[model.vertexCount() * 3];
+      }
+      if (polygons.length < model.length()) {
+        polygons = new int[model.length()];
+        depths = new double[model.length()];
+      }
+      camera.project(instance, projected);
+      count = camera.visiblePolygons(instance, projected, polygons);
+      for (int i = 0; i < count; i++) {
+        depths[i] = minDepth(model, polygons[i], projected, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package dodgeball.client;
+
+import dodgeball.game.Vector3;
+import dodgeball.render.ModelInstance;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the client draws for one network update: where the camera is, which way it faces,
+ * and the instances in view. A WorldState is filled in by one thread and then handed to another
+ * whole, so the thread drawing it never sees half of one update and half of the next. Its
+ * instance list is kept between updates, so refilling it doesn't allocate once it's grown.
+ */
+public class WorldState {
+  private Vector3 cameraPosition = Vector3.ZERO;
+  private Vector3 cameraDirection = new Vector3(1, 0, 0);
+  private final List<ModelInstance> instances = new ArrayList<ModelInstance>();
+
+  public Vector3 cameraPosition() {
+    return cameraPosition;
+  }
+
+  public Vector3 cameraDirection() {
+    return cameraDirection;
+  }
+
+  public void setCameraPosition(Vector3 position) {
+    cameraPosition = position;
+  }
+
+  public void setCameraDirection(Vector3 direction) {
+    cameraDirection = direction;
+  }
+
+  /**
+   * Get the instances to draw. The list belongs to the WorldState; it's refilled by the next
+   * update written into it.
+   *
+   * @return The instances, in the order they were added.
+   */
+  public List<ModelInstance> instances() {
+    return instances;
+  }
+
+  public void addInstance(ModelInstance instance) {
+    instances.add(instance);
+  }
+
+  public void clearInstances() {
+    instances.clear();
+  }
+
+  /**
+   * Make this WorldState a copy of another, reusing its own instance list.
+   *
+   * @param other The WorldState to copy.
+   */
+  public void copyFrom(WorldState other) {
+    cameraPosition = other.cameraPosition;
+    cameraDirection = other.cameraDirection;
+    instances.clear();
+    instances.addAll(other.instances);
+  }
+}
@@ -0,0 +1,344 @@
+package dodgeball.client;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Draws a DrawList by scan converting its polygons into an image with a depth buffer, rather than
+ * painting them back to front with <code>Graphics.fillPolygon</code>. Each pixel keeps whichever
+ * polygon is nearest there, so the list doesn't need to be sorted, nothing is painted over, and
+ * polygons that pass through each other are drawn correctly.
+ *
+ * <p>The screen is split into square tiles. Every polygon is binned into the tiles its bounding
+ * box touches, then the tiles are filled in parallel: each one owns its own pixels, so the workers
+ * never share a write. The finished image is drawn to the screen with a single
+ * <code>drawImage</code>. A ZBufferRasterizer should only be used from one thread at a time.
+ *
+ * <p>A list can also be rasterized at a reduced scale, into the top-left corner of the image.
+ * That fills fewer pixels, and <code>draw</code> stretches the corner back over the whole screen
+ * in the same single <code>drawImage</code>.
+ */
+public class ZBufferRasterizer {
+  private static final int TILE_SIZE = 64;
+
+  private final int width;
+  private final int height;
+  // The part of the image being drawn into this frame, and the tiles that cover it
+  private int viewWidth;
+  private int viewHeight;
+  private int tilesX;
+  private int tilesY;
+  private final BufferedImage image;
+  private final int[] pixels;
+  // One over each pixel's depth, so bigger is nearer and 0 is infinitely far away
+  private final float[] depths;
+  private int background;
+
+  // The polygons touching tile t are tilePolygons[tileStarts[t]] up to tileStarts[t + 1]
+  private final int[] tileStarts;
+  private final int[] tileEnds;
+  private int[] tilePolygons = new int[1024];
+  // Each polygon's on-screen bounding box as minX, minY, maxX, maxY; empty if minX > maxX
+  private int[] bounds = new int[1024];
+
+  private final IntConsumer tileTask = this::rasterizeTile;
+  private DrawList list;
+  // The list's vertices, scaled to the view
+  private double[] xcoords = new double[1024];
+  private double[] ycoords = new double[1024];
+
+  /**
+   * Create a rasterizer for a screen of the given size.
+   *
+   * @param width      The width of the screen in pixels.
+   * @param height     The height of the screen in pixels.
+   * @param background The color of pixels that no polygon covers, packed as 0xRRGGBB.
+   */
+  public ZBufferRasterizer(int width, int height, int background) {
+    this.width = width;
+    this.height = height;
+    this.background = background;
+    int maxTiles = ((width + TILE_SIZE - 1) / TILE_SIZE) * ((height + TILE_SIZE - 1) / TILE_SIZE);
+    image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    depths = new float[width * height];
+    tileStarts = new int[maxTiles + 1];
+    tileEnds = new int[maxTiles];
+  }
+
+  public BufferedImage image() {
+    return image;
+  }
+
+  public void setBackground(int background) {
+    this.background = background;
+  }
+
+  /**
+   * Get the width of the part of the image the last list was rasterized into.
+   *
+   * @return The width in pixels; the full width unless the last list was scaled down.
+   */
+  public int viewWidth() {
+    return viewWidth;
+  }
+
+  /**
+   * Get the height of the part of the image the last list was rasterized into.
+   *
+   * @return The height in pixels; the full height unless the last list was scaled down.
+   */
+  public int viewHeight() {
+    return viewHeight;
+  }
+
+  /**
+   * Rasterize a DrawList into the image, replacing whatever was there.
+   *
+   * @param list The polygons to draw, in any order. Each vertex must have an inverse depth.
+   */
+  public void rasterize(DrawList list) {
+    rasterize(list, 1);
+  }
+
+  /**
+   * Rasterize a DrawList into the top-left corner of the image, with every coordinate multiplied
+   * by a scale. Only that corner is replaced.
+   *
+   * @param list  The polygons to draw, in any order. Each vertex must have an inverse depth.
+   * @param scale What to multiply each coordinate by, in (0, 1].
+   * @throws IllegalArgumentException if <code>scale</code> is out of range.
+   */
+  public void rasterize(DrawList list, double scale) {
+    if (!(scale > 0 && scale <= 1)) {
+      throw new IllegalArgumentException("Scale must be in (0, 1]: " + scale);
+    }
+    viewWidth = Math.max(1, (int) Math.round(width * scale));
+    viewHeight = Math.max(1, (int) Math.round(height * scale));
+    tilesX = (viewWidth + TILE_SIZE - 1) / TILE_SIZE;
+    tilesY = (viewHeight + TILE_SIZE - 1) / TILE_SIZE;
+    this.list = list;
+    scaleVertices(scale);
+    binPolygons();
+    IntStream.range(0, tilesX * tilesY).parallel().forEach(tileTask);
+    this.list = null;
+  }
+
+  /**
+   * Rasterize a DrawList and draw the result.
+   *
+   * @param list The polygons to draw, in any order.
+   * @param g    The Graphics object to draw on.
+   */
+  public void draw(DrawList list, Graphics g) {
+    draw(list, g, 1);
+  }
+
+  /**
+   * Rasterize a DrawList at a reduced scale and stretch the result over the whole screen.
+   *
+   * @param list  The polygons to draw, in any order.
+   * @param g     The Graphics object to draw on.
+   * @param scale What to multiply each coordinate by, in (0, 1].
+   * @throws IllegalArgumentException if <code>scale</code> is out of range.
+   */
+  public void draw(DrawList list, Graphics g, double scale) {
+    rasterize(list, scale);
+    if (viewWidth == width && viewHeight == height) {
+      g.drawImage(image, 0, 0, null);
+    } else {
+      g.drawImage(image, 0, 0, width, height, 0, 0, viewWidth, viewHeight, null);
+    }
+  }
+
+  private void scaleVertices(double scale) {
+    int vertices = list.start(list.length());
+    if (xcoords.length < vertices) {
+      xcoords = new double[Math.max(vertices, xcoords.length * 2)];
+      ycoords = new double[xcoords.length];
+    }
+    int[] screenX = list.xcoords();
+    int[] screenY = list.ycoords();
+    for (int j = 0; j < vertices; j++) {
+      xcoords[j] = screenX[j] * scale;
+      ycoords[j] = screenY[j] * scale;
+    }
+  }
+
+  /**
+   * Sort the polygons into per-tile buckets, keeping their order within each bucket. A counting
+   * pass sizes the buckets, and a second pass fills them.
+   */
+  private void binPolygons() {
+    int length = list.length();
+    if (bounds.length < length * 4) {
+      bounds = new int[Math.max(length * 4, bounds.length * 2)];
+    }
+    Arrays.fill(tileStarts, 0, tilesX * tilesY + 1, 0);
+    for (int i = 0; i < length; i++) {
+      double lowX = Double.POSITIVE_INFINITY;
+      double lowY = Double.POSITIVE_INFINITY;
+      double highX = Double.NEGATIVE_INFINITY;
+      double highY = Double.NEGATIVE_INFINITY;
+      for (int j = list.start(i); j < list.start(i + 1); j++) {
+        lowX = Math.min(lowX, xcoords[j]);
+        lowY = Math.min(lowY, ycoords[j]);
+        highX = Math.max(highX, xcoords[j]);
+        highY = Math.max(highY, ycoords[j]);
+      }
+      // Clamp while still doubles, so huge off-screen coordinates can't overflow an int
+      int minX = (int) Math.ceil(Math.max(lowX, 0));
+      int minY = (int) Math.ceil(Math.max(lowY, 0));
+      int maxX = (int) Math.floor(Math.min(highX, viewWidth - 1));
+      int maxY = (int) Math.floor(Math.min(highY, viewHeight - 1));
+      if (minY > maxY) {
+        maxX = minX - 1;
+      }
+      bounds[i * 4] = minX;
+      bounds[i * 4 + 1] = minY;
+      bounds[i * 4 + 2] = maxX;
+      bounds[i * 4 + 3] = maxY;
+      if (minX > maxX) {
+        continue;
+      }
+      for (int ty = minY / TILE_SIZE; ty <= maxY / TILE_SIZE; ty++) {
+        for (int tx = minX / TILE_SIZE; tx <= maxX / TILE_SIZE; tx++) {
+          tileStarts[ty * tilesX + tx + 1]++;
+        }
+      }
+    }
+
+    for (int t = 0; t < tilesX * tilesY; t++) {
+      tileStarts[t + 1] += tileStarts[t];
+      tileEnds[t] = tileStarts[t];
+    }
+    int total = tileStarts[tilesX * tilesY];
+    if (tilePolygons.length < total) {
+      tilePolygons = new int[Math.max(total, tilePolygons.length * 2)];
+    }
+
+    for (int i = 0; i < length; i++) {
+      int minX = bounds[i * 4];
+      int maxX = bounds[i * 4 + 2];
+      if (minX > maxX) {
+        continue;
+      }
+      int minY = bounds[i * 4 + 1];
+      int maxY = bounds[i * 4 + 3];
+      for (int ty = minY / TILE_SIZE; ty <= maxY / TILE_SIZE; ty++) {
+        for (int tx = minX / TILE_SIZE; tx <= maxX / TILE_SIZE; tx++) {
+          tilePolygons[tileEnds[ty * tilesX + tx]++] = i;
+        }
+      }
+    }
+  }
+
+  /**
+   * Clear one tile and fill in every polygon binned into it. Runs on a worker thread.
+   */
+  private void rasterizeTile(int tile) {
+    int tileMinX = (tile % tilesX) * TILE_SIZE;
+    int tileMinY = (tile / tilesX) * TILE_SIZE;
+    int tileMaxX = Math.min(tileMinX + TILE_SIZE, viewWidth) - 1;
+    int tileMaxY = Math.min(tileMinY + TILE_SIZE, viewHeight) - 1;
+    for (int y = tileMinY; y <= tileMaxY; y++) {
+      int row = y * width;
+      Arrays.fill(pixels, row + tileMinX, row + tileMaxX + 1, background);
+      Arrays.fill(depths, row + tileMinX, row + tileMaxX + 1, 0);
+    }
+
+    float[] inverseDepths = list.inverseDepths();
+    for (int k = tileStarts[tile]; k < tileStarts[tile + 1]; k++) {
+      int polygon = tilePolygons[k];
+      int minX = Math.max(bounds[polygon * 4], tileMinX);
+      int minY = Math.max(bounds[polygon * 4 + 1], tileMinY);
+      int maxX = Math.min(bounds[polygon * 4 + 2], tileMaxX);
+      int maxY = Math.min(bounds[polygon * 4 + 3], tileMaxY);
+      int rgb = list.color(polygon);
+
+      // Polygons are convex, so fan them into triangles around the first vertex
+      int first = list.start(polygon);
+      for (int j = first + 1; j < list.start(polygon + 1) - 1; j++) {
+        rasterizeTriangle(xcoords[first], ycoords[first], inverseDepths[first],
+            xcoords[j], ycoords[j], inverseDepths[j],
+            xcoords[j + 1], ycoords[j + 1], inverseDepths[j + 1],
+            rgb, minX, minY, maxX, maxY);
+      }
+    }
+  }
+
+  /**
+   * Fill the part of a triangle that lies within a box, keeping only the pixels where it is
+   * nearer than what is already there. Pixels are sampled at their integer coordinates, using
+   * edge functions that are stepped across each row. Inverse depth is linear in screen space, so
+   * it is interpolated the same way.
+   */
+  private void rasterizeTriangle(double x0, double y0, float z0, double x1, double y1, float z1,
+      double x2, double y2, float z2, int rgb, int minX, int minY, int maxX, int maxY) {
+    double area = (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+    if (area == 0) {
+      return;
+    }
+    if (area < 0) {
+      // Wind every triangle the same way so the inside is where all three edges are positive
+      double swapX = x1;
+      double swapY = y1;
+      float swapZ = z1;
+      x1 = x2;
+      y1 = y2;
+      z1 = z2;
+      x2 = swapX;
+      y2 = swapY;
+      z2 = swapZ;
+      area = -area;
+    }
+    minX = Math.max(minX, (int) Math.ceil(Math.min(x0, Math.min(x1, x2))));
+    minY = Math.max(minY, (int) Math.ceil(Math.min(y0, Math.min(y1, y2))));
+    maxX = Math.min(maxX, (int) Math.floor(Math.max(x0, Math.max(x1, x2))));
+    maxY = Math.min(maxY, (int) Math.floor(Math.max(y0, Math.max(y1, y2))));
+    if (minX > maxX || minY > maxY) {
+      return;
+    }
+
+    // Edge i is opposite vertex i, and is positive on the same side as it
+    double stepX0 = y1 - y2;
+    double stepY0 = x2 - x1;
+    double stepX1 = y2 - y0;
+    double stepY1 = x0 - x2;
+    double stepX2 = y0 - y1;
+    double stepY2 = x1 - x0;
+    double rowEdge0 = (minX - x1) * stepX0 + (minY - y1) * stepY0;
+    double rowEdge1 = (minX - x2) * stepX1 + (minY - y2) * stepY1;
+    double rowEdge2 = (minX - x0) * stepX2 + (minY - y0) * stepY2;
+
+    double stepZX = (stepX0 * z0 + stepX1 * z1 + stepX2 * z2) / area;
+    double stepZY = (stepY0 * z0 + stepY1 * z1 + stepY2 * z2) / area;
+    double rowZ = (rowEdge0 * z0 + rowEdge1 * z1 + rowEdge2 * z2) / area;
+
+    for (int y = minY; y <= maxY; y++) {
+      double edge0 = rowEdge0;
+      double edge1 = rowEdge1;
+      double edge2 = rowEdge2;
+      double z = rowZ;
+      int pixel = y * width + minX;
+      for (int x = minX; x <= maxX; x++, pixel++) {
+        if (edge0 >= 0 && edge1 >= 0 && edge2 >= 0 && z > depths[pixel]) {
+          depths[pixel] = (float) z;
+          pixels[pixel] = rgb;
+        }
+        edge0 += stepX0;
+        edge1 += stepX1;
+        edge2 += stepX2;
+        z += stepZX;
+      }
+      rowEdge0 += stepY0;
+      rowEdge1 += stepY1;
+      rowEdge2 += stepY2;
+      rowZ += stepZY;
+    }
+  }
+}
@@ -1,15 +1,64 @@
 package dodgeball.client.assets;
 
-import dodgeball.game.Model3;
+import dodgeball.render.Model3;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 
 /**
- * Construct a <code>dodgeball.game.Model3</code> from the command line.
+ * Construct a <code>dodgeball.render.Model3</code> from the command line.
+ *
+ * <p>Run with no arguments to design a new model. Run with <code>lod Name</code> to generate
+ * detail levels for <code>Name.md3</code>, written beside it as <code>Name.lod1.md3</code>,
+ * <code>Name.lod2.md3</code>, and so on. An optional third argument caps the number of levels.
+ * Run with <code>convert Name</code> to rewrite <code>Name.md3</code> in the version 2 format.
  */
 public class BuildModel {
+  private static final int DEFAULT_LEVELS = 3;
+  // Each level's grid cells, as a fraction of the model's bounding radius, double the last level's
+  private static final double FIRST_CELL_FRACTION = 0.25;
+
   public static void main(String[] args) throws IOException {
-    String path = new File("").getAbsolutePath();
-    Model3.designModel(path + "/dodgeball/client/assets");
+    String path = new File("").getAbsolutePath() + "/dodgeball/client/assets";
+    if (args.length >= 2 && args[0].equals("lod")) {
+      int maxLevels = args.length >= 3 ? Integer.parseInt(args[2]) : DEFAULT_LEVELS;
+      buildLevels(new File(path + "/" + args[1] + ".md3"), maxLevels);
+    } else if (args.length >= 2 && args[0].equals("convert")) {
+      File file = new File(path + "/" + args[1] + ".md3");
+      long before = file.length();
+      // Read into memory rather than mapping, so nothing holds the file open while it's replaced
+      new Model3(ByteBuffer.wrap(Files.readAllBytes(file.toPath()))).save(file);
+      System.out.println(file.getName() + ": " + before + " bytes -> " + file.length() + " bytes");
+    } else {
+      Model3.designModel(path);
+    }
+  }
+
+  /**
+   * Simplify a model into coarser and coarser levels, stopping once a level no longer saves any
+   * polygons.
+   */
+  private static void buildLevels(File file, int maxLevels) throws IOException {
+    Model3 model = new Model3(file);
+    String base = file.getName().substring(0, file.getName().length() - 4);
+    double cellSize = model.boundingRadius() * FIRST_CELL_FRACTION;
+    Model3 previous = model;
+    int level = 1;
+    while (level <= maxLevels) {
+      Model3 simplified = model.simplify(cellSize);
+      cellSize *= 2;
+      if (simplified.length() == 0) {
+        break;
+      }
+      if (simplified.length() >= previous.length()) {
+        continue;
+      }
+      File output = new File(file.getParentFile(), base + ".lod" + level + ".md3");
+      simplified.save(output);
+      System.out.println(output.getName() + ": " + simplified.length() + " polygons");
+      previous = simplified;
+      level++;
+    }
   }
 }
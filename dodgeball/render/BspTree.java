@@ -0,0 +1,385 @@
+package dodgeball.render;
+
+import dodgeball.game.Vector3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A binary space partitioning tree over a Model3's polygons, for static geometry. Each node splits
+ * space along the plane of one of the polygons; polygons that cross a node's plane are cut in two.
+ * Walking the tree from any eye position visits the polygons in a correct painter's order, far
+ * to near, without sorting and without the errors a depth key makes on overlapping polygons.
+ *
+ * <p>Since cutting makes new polygons, the tree draws its own copy of the model,
+ * <code>mesh()</code>, whose polygons are grouped by node. Nodes, planes, and polygon ranges are
+ * all stored in flat arrays. A BspTree never changes once built, so it can be shared freely.
+ */
+public class BspTree {
+  // Polygon vertices closer to a plane than this are treated as lying on it
+  private static final double PLANE_EPSILON = 1e-9;
+  // How many polygons to try as the splitter at each node
+  private static final int SPLITTER_CANDIDATES = 16;
+  // How much worse a split is than an unbalanced tree when choosing a splitter
+  private static final int SPLIT_COST = 8;
+  // Where a polygon lies relative to a plane. SPANNING is FRONT | BACK.
+  private static final int COPLANAR = 0;
+  private static final int FRONT = 1;
+  private static final int BACK = 2;
+  private static final int SPANNING = 3;
+
+  private final Model3 mesh;
+  private final double[] planes; // x, y, z of the normal, then the offset, for each node
+  private final int[] fronts;
+  private final int[] backs;
+  private final int[] firstPolygons;
+  private final int[] polygonCounts;
+  private final int[] polygonNodes; // the node each polygon of the mesh belongs to
+  private final int depth;
+  private final int root;
+  private final double epsilon;
+
+  /**
+   * Build a tree over a model's polygons.
+   *
+   * @param model The model to partition, in its own space.
+   */
+  public BspTree(Model3 model) {
+    double[] vertices = model.vertexData();
+    int[] indices = model.indices();
+    List<Piece> pieces = new ArrayList<Piece>();
+    for (int i = 0; i < model.length(); i++) {
+      int start = model.polygonStart(i);
+      int count = model.polygonStart(i + 1) - start;
+      double[] points = new double[count * 3];
+      for (int j = 0; j < count; j++) {
+        System.arraycopy(vertices, indices[start + j] * 3, points, j * 3, 3);
+      }
+      Piece piece = new Piece(points, model.color(i));
+      if (piece.normal != null) {
+        pieces.add(piece);
+      }
+    }
+    epsilon = PLANE_EPSILON * (1 + model.boundingRadius());
+
+    Builder builder = new Builder();
+    root = pieces.isEmpty() ? -1 : builder.build(pieces, 1);
+    mesh = builder.mesh(model.center());
+    int nodes = builder.nodeCount;
+    planes = Arrays.copyOf(builder.planes, nodes * 4);
+    fronts = Arrays.copyOf(builder.fronts, nodes);
+    backs = Arrays.copyOf(builder.backs, nodes);
+    firstPolygons = Arrays.copyOf(builder.firstPolygons, nodes);
+    polygonCounts = Arrays.copyOf(builder.polygonCounts, nodes);
+    depth = builder.maxDepth;
+    polygonNodes = new int[mesh.length()];
+    for (int node = 0; node < nodes; node++) {
+      Arrays.fill(polygonNodes, firstPolygons[node], firstPolygons[node] + polygonCounts[node],
+          node);
+    }
+  }
+
+  /**
+   * Get the model the tree draws: the original model's polygons, with any that crossed a
+   * splitting plane cut into pieces. Its polygon indices are the ones <code>order</code> writes.
+   *
+   * @return The partitioned copy of the model.
+   */
+  public Model3 mesh() {
+    return mesh;
+  }
+
+  /**
+   * Get the number of nodes in the tree.
+   *
+   * @return The node count.
+   */
+  public int nodeCount() {
+    return fronts.length;
+  }
+
+  /**
+   * Get the number of nodes on the longest path from the root to a leaf.
+   *
+   * @return The depth of the tree.
+   */
+  public int depth() {
+    return depth;
+  }
+
+  /**
+   * Get the node a polygon of the mesh lies on. Polygons on the same node share a plane and never
+   * overlap, so they can be drawn in any order among themselves.
+   *
+   * @param polygon The index of a polygon in <code>mesh()</code>.
+   * @return The polygon's node.
+   */
+  public int node(int polygon) {
+    return polygonNodes[polygon];
+  }
+
+  /**
+   * List the mesh's polygons in painter's order as seen from a point.
+   *
+   * @param eyeX The x-coordinate of the eye, in the model's space.
+   * @param eyeY The y-coordinate of the eye.
+   * @param eyeZ The z-coordinate of the eye.
+   * @param out  Receives the polygon indices of <code>mesh()</code>, farthest first. Must hold at
+   *             least <code>mesh().length()</code> values.
+   * @return The number of indices written, which is always <code>mesh().length()</code>.
+   */
+  public int order(double eyeX, double eyeY, double eyeZ, int[] out) {
+    if (root < 0) {
+      return 0;
+    }
+    // Entries of -1 - n mean "emit node n's polygons"; entries of n >= 0 mean "visit node n".
+    // Each visit pushes at most three entries and pops one, so the stack never outgrows this.
+    int[] pending = new int[2 * depth + 2];
+    int top = 0;
+    int written = 0;
+    pending[top++] = root;
+    while (top > 0) {
+      int entry = pending[--top];
+      if (entry < 0) {
+        int node = -1 - entry;
+        for (int i = 0; i < polygonCounts[node]; i++) {
+          out[written++] = firstPolygons[node] + i;
+        }
+        continue;
+      }
+      int node = entry;
+      double side = planes[node * 4] * eyeX + planes[node * 4 + 1] * eyeY
+          + planes[node * 4 + 2] * eyeZ - planes[node * 4 + 3];
+      // The half-space without the eye is drawn first, then the node, then the eye's half
+      int near = side >= 0 ? fronts[node] : backs[node];
+      int far = side >= 0 ? backs[node] : fronts[node];
+      if (near >= 0) {
+        pending[top++] = near;
+      }
+      pending[top++] = -1 - node;
+      if (far >= 0) {
+        pending[top++] = far;
+      }
+    }
+    return written;
+  }
+
+  /**
+   * A convex polygon on its way into the tree, with its plane.
+   */
+  private static class Piece {
+    final double[] points;
+    final int color;
+    final double[] normal;
+    final double offset;
+
+    Piece(double[] points, int color) {
+      this.points = points;
+      this.color = color;
+      // Newell's method, as in Model3, but keeping the winding's own orientation
+      double nx = 0;
+      double ny = 0;
+      double nz = 0;
+      int count = points.length / 3;
+      for (int j = 0; j < count; j++) {
+        int current = j * 3;
+        int next = (j + 1) % count * 3;
+        nx += (points[current + 1] - points[next + 1]) * (points[current + 2] + points[next + 2]);
+        ny += (points[current + 2] - points[next + 2]) * (points[current] + points[next]);
+        nz += (points[current] - points[next]) * (points[current + 1] + points[next + 1]);
+      }
+      double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+      if (length == 0) {
+        normal = null;
+        offset = 0;
+        return;
+      }
+      normal = new double[] { nx / length, ny / length, nz / length };
+      offset = normal[0] * points[0] + normal[1] * points[1] + normal[2] * points[2];
+    }
+
+    Piece(double[] points, int color, double[] normal, double offset) {
+      this.points = points;
+      this.color = color;
+      this.normal = normal;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * Grows the flat node arrays and the mesh while the tree is built.
+   */
+  private class Builder {
+    double[] planes = new double[64];
+    int[] fronts = new int[16];
+    int[] backs = new int[16];
+    int[] firstPolygons = new int[16];
+    int[] polygonCounts = new int[16];
+    int nodeCount;
+    int maxDepth;
+    List<Piece> meshPieces = new ArrayList<Piece>();
+
+    int build(List<Piece> pieces, int level) {
+      maxDepth = Math.max(maxDepth, level);
+      Piece splitter = pieces.get(chooseSplitter(pieces));
+      int node = nodeCount++;
+      if (node == fronts.length) {
+        int capacity = fronts.length * 2;
+        planes = Arrays.copyOf(planes, capacity * 4);
+        fronts = Arrays.copyOf(fronts, capacity);
+        backs = Arrays.copyOf(backs, capacity);
+        firstPolygons = Arrays.copyOf(firstPolygons, capacity);
+        polygonCounts = Arrays.copyOf(polygonCounts, capacity);
+      }
+      planes[node * 4] = splitter.normal[0];
+      planes[node * 4 + 1] = splitter.normal[1];
+      planes[node * 4 + 2] = splitter.normal[2];
+      planes[node * 4 + 3] = splitter.offset;
+
+      List<Piece> front = new ArrayList<Piece>();
+      List<Piece> back = new ArrayList<Piece>();
+      firstPolygons[node] = meshPieces.size();
+      for (Piece piece : pieces) {
+        split(piece, splitter, meshPieces, front, back);
+      }
+      polygonCounts[node] = meshPieces.size() - firstPolygons[node];
+
+      int frontNode = front.isEmpty() ? -1 : build(front, level + 1);
+      int backNode = back.isEmpty() ? -1 : build(back, level + 1);
+      fronts[node] = frontNode;
+      backs[node] = backNode;
+      return node;
+    }
+
+    /**
+     * Pick the candidate that cuts the fewest polygons while splitting the rest most evenly.
+     * Candidates are spread evenly through the list.
+     */
+    int chooseSplitter(List<Piece> pieces) {
+      int step = Math.max(1, pieces.size() / SPLITTER_CANDIDATES);
+      int best = 0;
+      long bestCost = Long.MAX_VALUE;
+      for (int candidate = 0; candidate < pieces.size(); candidate += step) {
+        Piece splitter = pieces.get(candidate);
+        int splits = 0;
+        int balance = 0;
+        for (Piece piece : pieces) {
+          int side = classify(piece, splitter);
+          if (side == SPANNING) {
+            splits++;
+          } else if (side == FRONT) {
+            balance++;
+          } else if (side == BACK) {
+            balance--;
+          }
+        }
+        long cost = (long) splits * SPLIT_COST + Math.abs(balance);
+        if (cost < bestCost) {
+          bestCost = cost;
+          best = candidate;
+        }
+      }
+      return best;
+    }
+
+    Model3 mesh(Vector3 center) {
+      int vertexCount = 0;
+      for (Piece piece : meshPieces) {
+        vertexCount += piece.points.length / 3;
+      }
+      double[] vertices = new double[vertexCount * 3];
+      int[] indices = new int[vertexCount];
+      int[] starts = new int[meshPieces.size() + 1];
+      int[] colors = new int[meshPieces.size()];
+      for (int i = 0; i < meshPieces.size(); i++) {
+        Piece piece = meshPieces.get(i);
+        System.arraycopy(piece.points, 0, vertices, starts[i] * 3, piece.points.length);
+        starts[i + 1] = starts[i] + piece.points.length / 3;
+        colors[i] = piece.color;
+      }
+      for (int i = 0; i < vertexCount; i++) {
+        indices[i] = i;
+      }
+      return new Model3(center, vertices, indices, starts, colors);
+    }
+  }
+
+  private int classify(Piece piece, Piece splitter) {
+    int sides = 0;
+    for (int i = 0; i < piece.points.length; i += 3) {
+      double distance = distance(piece.points, i, splitter);
+      if (distance > epsilon) {
+        sides |= FRONT;
+      } else if (distance < -epsilon) {
+        sides |= BACK;
+      }
+    }
+    return sides;
+  }
+
+  private static double distance(double[] points, int i, Piece splitter) {
+    return splitter.normal[0] * points[i] + splitter.normal[1] * points[i + 1]
+        + splitter.normal[2] * points[i + 2] - splitter.offset;
+  }
+
+  /**
+   * Sort a polygon against a splitter's plane: onto the node if it lies in the plane, into one
+   * side if it lies wholly on that side, or cut in two along the plane otherwise.
+   */
+  private void split(Piece piece, Piece splitter, List<Piece> coplanar, List<Piece> front,
+      List<Piece> back) {
+    int side = classify(piece, splitter);
+    if (side == COPLANAR) {
+      coplanar.add(piece);
+      return;
+    }
+    if (side == FRONT) {
+      front.add(piece);
+      return;
+    }
+    if (side == BACK) {
+      back.add(piece);
+      return;
+    }
+
+    int count = piece.points.length / 3;
+    double[] frontPoints = new double[(count + 1) * 3];
+    double[] backPoints = new double[(count + 1) * 3];
+    int frontLength = 0;
+    int backLength = 0;
+    for (int j = 0; j < count; j++) {
+      int current = j * 3;
+      int next = (j + 1) % count * 3;
+      double currentDistance = distance(piece.points, current, splitter);
+      double nextDistance = distance(piece.points, next, splitter);
+      if (currentDistance >= -epsilon) {
+        System.arraycopy(piece.points, current, frontPoints, frontLength, 3);
+        frontLength += 3;
+      }
+      if (currentDistance <= epsilon) {
+        System.arraycopy(piece.points, current, backPoints, backLength, 3);
+        backLength += 3;
+      }
+      if ((currentDistance > epsilon && nextDistance < -epsilon)
+          || (currentDistance < -epsilon && nextDistance > epsilon)) {
+        double t = currentDistance / (currentDistance - nextDistance);
+        for (int axis = 0; axis < 3; axis++) {
+          double value = piece.points[current + axis]
+              + t * (piece.points[next + axis] - piece.points[current + axis]);
+          frontPoints[frontLength + axis] = value;
+          backPoints[backLength + axis] = value;
+        }
+        frontLength += 3;
+        backLength += 3;
+      }
+    }
+    if (frontLength >= 9) {
+      front.add(new Piece(Arrays.copyOf(frontPoints, frontLength), piece.color, piece.normal,
+          piece.offset));
+    }
+    if (backLength >= 9) {
+      back.add(new Piece(Arrays.copyOf(backPoints, backLength), piece.color, piece.normal,
+          piece.offset));
+    }
+  }
+}
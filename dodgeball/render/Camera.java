@@ -0,0 +1,515 @@
+package dodgeball.render;
+
+import dodgeball.game.Vector3;
+import java.util.stream.IntStream;
+
+/**
+ * Determines the projection of objects in 3D space onto a 2D viewpane.
+ *
+ * @author Andrew Yim
+ * @version 11-12-2023
+ */
+public class Camera {
+  /** Batches with fewer vertices than this are projected on the calling thread. */
+  public static final int PARALLEL_VERTEX_THRESHOLD = 16384;
+  private static final int PARALLEL_CHUNK_SIZE = 4096;
+  /** Half the width of the view at 1 unit from the camera, for a 90 degree field of view. */
+  public static final double VIEW_HALF_WIDTH = 1.0;
+  /** Half the height of the view at 1 unit from the camera, for a 60 degree field of view. */
+  public static final double VIEW_HALF_HEIGHT = 1.0 / Math.sqrt(3);
+  private static final double SIDE_PLANE_SCALE = 1 / Math.sqrt(1 + VIEW_HALF_WIDTH
+      * VIEW_HALF_WIDTH);
+  private static final double TOP_PLANE_SCALE = 1 / Math.sqrt(1 + VIEW_HALF_HEIGHT
+      * VIEW_HALF_HEIGHT);
+
+  private Vector3 position;
+  private Vector3 direction;
+  private Vector3 horizontal;
+  private Vector3 vertical;
+  // World-to-view transform, rebuilt whenever the camera moves. Rows are horizontal, vertical, and
+  // direction, each followed by its translation term.
+  private double[] view = new double[12];
+  // Scratch space for the model-view matrix of the instance being projected
+  private double[] modelView = new double[12];
+
+  /**
+   * Define a Camera in terms of its current position in the 3D space and the
+   * direction in
+   * which it is currently looking.
+   */
+  public Camera(Vector3 position, Vector3 direction) {
+    this.position = position;
+    setDirection(direction);
+  }
+
+  /**
+   * Define a Camera in terms of the coordintes of its current position and the
+   * components of its
+   * direction vector.
+   */
+  public Camera(int positionX, int positionY, int positionZ,
+      int directionX, int directionY, int directionZ) {
+    this(new Vector3(positionX, positionY, positionZ),
+        new Vector3(directionX, directionY, directionZ));
+  }
+  
+  /**
+   * Rotate the Vector3 about the origin. Only available along the pitch (up-down)
+   * and yaw (left-right) axes. Pitch is limited to +-45 degrees.
+   *
+   * @param yaw   The number of degrees to yaw (side-side) by.
+   * @param pitch The number of degrees to pitch (up-down) by.
+   */
+  public static Vector3 rotateLookVector(Vector3 vector, double yaw, double pitch) {
+    yaw = Math.toRadians(yaw) * -1; // Shifts to clockwise instead of CCW rotation
+    pitch = Math.toRadians(pitch);
+
+    double baseLength = Math.sqrt(vector.xcoord * vector.xcoord + vector.ycoord * vector.ycoord);
+    double currPitch = Math.atan2(vector.ycoord, baseLength);
+
+    // Set the pitch, restricting it to a certain range
+    double newPitch = currPitch + pitch;
+    if (newPitch > Math.PI / 4.0) {
+      newPitch = Math.PI / 4.0;
+    } else if (newPitch < -Math.PI / 4.0) {
+      newPitch = -Math.PI / 4.0;
+    }
+    double newY = Math.tan(newPitch) * baseLength;
+
+    // Saves time in the next step
+    double sinYaw = Math.sin(yaw);
+    double cosYaw = Math.cos(yaw);
+    double newX = vector.xcoord * cosYaw + vector.zcoord * sinYaw;
+    double newZ = -vector.xcoord * sinYaw + vector.zcoord * cosYaw;
+
+    return new Vector3(newX, newY, newZ);
+  }
+
+  /**
+   * Get the Vector3 representing the Camera's x, y, and z coordinates.
+   *
+   * @return A Vector3 containing the Camera's x, y, and z coordinates,
+   *         respectively.
+   */
+  public Vector3 position() {
+    return position;
+  }
+
+  /**
+   * Get the Vector3 representing the Camera's look vector. A Camera's look vector
+   * is the vector that
+   * it looks straight through.
+   *
+   * @return A Vector3 containing the x, y, and z coordinates of the Camera's look
+   *         vector,
+   *         respectively.
+   */
+  public Vector3 direction() {
+    return direction;
+  }
+
+  public Vector3 horizontal() {
+    return horizontal;
+  }
+
+  public Vector3 vertical() {
+    return vertical;
+  }
+
+  /**
+   * Set the Camera's position, given a Vector3 object that represents its new x,
+   * y, and z.
+   *
+   * @param position A Vector3 containing the desired x, y, and z coordinates,
+   *                 respectively.
+   */
+  public void setPosition(Vector3 position) {
+    this.position = position;
+    updateView();
+  }
+
+  /**
+   * Set the Camera's look vector, given a Vector3 object that represents its new
+   * x, y, and z.
+   *
+   * @param direction A Vector3 containing the desired x, y, and z coordinates
+   *      of the direction, respectively.
+   */
+  public void setDirection(Vector3 direction) {
+    this.direction = direction.unit();
+    horizontal = direction.cross(Vector3.J).unit();
+    vertical = horizontal.cross(direction).unit();
+    updateView();
+  }
+
+  /**
+   * Translate the camera. Equivalent to adding the given vector to the camera's
+   * position vector.
+   *
+   * @param displacement The vector by which the camera should be translated.
+   */
+  public void translate(Vector3 displacement) {
+    position = position.add(displacement);
+    updateView();
+  }
+
+  private void updateView() {
+    if (position == null || direction == null) {
+      return;
+    }
+    Vector3[] rows = { horizontal, vertical, direction };
+    for (int row = 0; row < 3; row++) {
+      Vector3 axis = rows[row];
+      view[row * 4] = axis.xcoord;
+      view[row * 4 + 1] = axis.ycoord;
+      view[row * 4 + 2] = axis.zcoord;
+      view[row * 4 + 3] = -axis.dot(position);
+    }
+  }
+
+  /**
+   * Rotate the camera. Only available along the pitch (up-down) and yaw
+   * (left-right) axes.
+   *
+   * @param yaw   The number of degrees to yaw (side-side) by.
+   * @param pitch The number of degrees to pitch (up-down) by.
+   */
+  public void rotate(double yaw, double pitch) {
+    setDirection(rotateLookVector(direction, yaw, pitch));
+  }
+
+  /**
+   * Render a 3D point as a point on a 2D plane, according to the current position
+   * and direction
+   * of the camera.
+   *
+   * @param point A Vector3 containing the point's coordinates.
+   * @return The coordinates of the projection of the point on the viewplane and
+   *         its distance from
+   *         the viewplane as a Vector3.
+   */
+  public Vector3 render(Vector3 point) {
+    double[] out = new double[3];
+    project(new double[] { point.xcoord, point.ycoord, point.zcoord }, 1, view, out, 0);
+    return new Vector3(out[0], out[1], out[2]);
+  }
+
+  /**
+   * Render a 3D polygon onto a 2D plane, according to the current position and
+   * direction of the
+   * camera.
+   *
+   * @param polygon A Polygon3 to be rendered.
+   * @return A Polygon3 where x- and y-values are coordinates on a plane and
+   *         z-values are
+   *         distances from the viewplane.
+   */
+  public Polygon3 render(Polygon3 polygon) {
+    Vector3[] renderedPoints = new Vector3[polygon.length()];
+    for (int i = 0; i < renderedPoints.length; i++) {
+      renderedPoints[i] = render(polygon.point(i));
+    }
+    return new Polygon3(renderedPoints, polygon.color());
+  }
+
+  /**
+   * Render a 3D model onto a 2D plane, according to the current position and
+   * direction of the
+   * camera. Returns an array of Polygon3s, not a new Model3 object.
+   */
+  public Polygon3[] render(Model3 model) {
+    return render(new ModelInstance(model, Vector3.ZERO));
+  }
+
+  /**
+   * Render an instance of a model onto a 2D plane, according to the current position and
+   * direction of the camera. The instance's transform is applied to each vertex on the way
+   * through, so the shared model is never copied or modified.
+   *
+   * @param instance The placed model to be rendered.
+   * @return An array of Polygon3s where x- and y-values are coordinates on a plane and z-values
+   *         are distances from the viewplane.
+   */
+  public Polygon3[] render(ModelInstance instance) {
+    Model3 model = instance.model();
+    double[] projected = new double[model.vertexCount() * 3];
+    project(instance, projected);
+
+    int[] all = new int[model.length()];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = i;
+    }
+    return toPolygons(model, projected, all, all.length);
+  }
+
+  /**
+   * Render only the parts of a model instance that can be seen: nothing at all if it's outside
+   * the view frustum, and otherwise only the polygons that <code>visiblePolygons</code> keeps.
+   *
+   * @param instance The placed model to be rendered.
+   * @return An array of visible Polygon3s where x- and y-values are coordinates on a plane and
+   *         z-values are distances from the viewplane.
+   */
+  public Polygon3[] renderVisible(ModelInstance instance) {
+    if (!canSee(instance)) {
+      return new Polygon3[0];
+    }
+    Model3 model = instance.model();
+    double[] projected = new double[model.vertexCount() * 3];
+    project(instance, projected);
+    int[] visible = new int[model.length()];
+    int count = visiblePolygons(instance, projected, visible);
+
+    return toPolygons(model, projected, visible, count);
+  }
+
+  /**
+   * Wrap some of a model's projected polygons up as Polygon3s.
+   */
+  private static Polygon3[] toPolygons(Model3 model, double[] projected, int[] polygons,
+      int count) {
+    int[] indices = model.indices();
+    Polygon3[] renderedPolys = new Polygon3[count];
+    for (int i = 0; i < count; i++) {
+      int polygon = polygons[i];
+      int start = model.polygonStart(polygon);
+      double[] coords = new double[(model.polygonStart(polygon + 1) - start) * 3];
+      for (int j = 0; j < coords.length; j += 3) {
+        System.arraycopy(projected, indices[start + j / 3] * 3, coords, j, 3);
+      }
+      renderedPolys[i] = new Polygon3(coords, model.color(polygon));
+    }
+    return renderedPolys;
+  }
+
+  /**
+   * Project every vertex of a model instance at once. The instance's transform is folded into the
+   * camera's view transform, so each vertex costs one 3x4 matrix multiply and a divide.
+   *
+   * @param instance The placed model to be projected.
+   * @param out      Receives the screen x, screen y, and depth of each of the model's vertices, in
+   *                 the same order as the model stores them. Depths are signed squared distances
+   *                 along the look vector, negative behind the camera. Must hold at least three
+   *                 times <code>vertexCount()</code> values.
+   */
+  public void project(ModelInstance instance, double[] out) {
+    project(instance, out, 0);
+  }
+
+  /**
+   * Project every vertex of a model instance at once, writing the results partway into an array.
+   *
+   * @param instance The placed model to be projected.
+   * @param out      Receives the projected vertices, as in <code>project(instance, out)</code>.
+   * @param offset   Where in <code>out</code> to write the first vertex.
+   */
+  public void project(ModelInstance instance, double[] out, int offset) {
+    Model3 model = instance.model();
+    project(model.vertexData(), model.vertexCount(), modelView(instance), out, offset);
+  }
+
+  /**
+   * Build the matrix that takes a vertex of an instance straight from model space to view space:
+   * the camera's view transform applied after the instance's yaw and translation. The result is
+   * written into a scratch array that the next call overwrites.
+   */
+  private double[] modelView(ModelInstance instance) {
+    Vector3 center = instance.model().center();
+    Vector3 offset = instance.position();
+    double sin = instance.sinYaw();
+    double cos = instance.cosYaw();
+    // World position = A * p + b, where A rotates about the y-axis and b moves the model center
+    double bx = center.xcoord + offset.xcoord - (cos * center.xcoord + sin * center.zcoord);
+    double by = offset.ycoord;
+    double bz = center.zcoord + offset.zcoord - (-sin * center.xcoord + cos * center.zcoord);
+
+    double[] matrix = modelView;
+    for (int row = 0; row < 3; row++) {
+      double vx = view[row * 4];
+      double vy = view[row * 4 + 1];
+      double vz = view[row * 4 + 2];
+      matrix[row * 4] = vx * cos - vz * sin;
+      matrix[row * 4 + 1] = vy;
+      matrix[row * 4 + 2] = vx * sin + vz * cos;
+      matrix[row * 4 + 3] = vx * bx + vy * by + vz * bz + view[row * 4 + 3];
+    }
+    return matrix;
+  }
+
+  /**
+   * Determine whether any part of a model instance could be in view, by testing its bounding
+   * sphere against the camera's 90 by 60 degree view frustum. Cheap enough to run on every
+   * instance before projecting anything.
+   *
+   * @param instance The placed model to test.
+   * @return <code>false</code> if the instance is definitely out of view; <code>true</code>
+   *         otherwise.
+   */
+  public boolean canSee(ModelInstance instance) {
+    Vector3 bounds = instance.model().boundsCenter();
+    double radius = instance.model().boundingRadius();
+    double[] matrix = modelView(instance);
+    double right = matrix[0] * bounds.xcoord + matrix[1] * bounds.ycoord
+        + matrix[2] * bounds.zcoord + matrix[3];
+    double up = matrix[4] * bounds.xcoord + matrix[5] * bounds.ycoord
+        + matrix[6] * bounds.zcoord + matrix[7];
+    double forward = matrix[8] * bounds.xcoord + matrix[9] * bounds.ycoord
+        + matrix[10] * bounds.zcoord + matrix[11];
+
+    if (forward < -radius) {
+      return false;
+    }
+    if ((VIEW_HALF_WIDTH * forward - Math.abs(right)) * SIDE_PLANE_SCALE < -radius) {
+      return false;
+    }
+    if ((VIEW_HALF_HEIGHT * forward - Math.abs(up)) * TOP_PLANE_SCALE < -radius) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Estimate how big a model instance looks, from its bounding sphere's distance along the look
+   * vector.
+   *
+   * @param instance The placed model to measure.
+   * @return The bounding sphere's projected radius as a fraction of half the view's width, or
+   *         infinity if the camera is inside the sphere or closer to it than its radius.
+   */
+  public double screenRadius(ModelInstance instance) {
+    Vector3 bounds = instance.model().boundsCenter();
+    double radius = instance.model().boundingRadius();
+    double[] matrix = modelView(instance);
+    double forward = matrix[8] * bounds.xcoord + matrix[9] * bounds.ycoord
+        + matrix[10] * bounds.zcoord + matrix[11];
+    if (forward <= radius) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return radius / forward / VIEW_HALF_WIDTH;
+  }
+
+  /**
+   * Pick out the polygons of a projected instance that are worth drawing. Drops polygons that
+   * face away from the camera, using the model's cached normals, as well as polygons that reach
+   * behind the camera or lie entirely off one side of the screen.
+   *
+   * @param instance  The placed model that was projected.
+   * @param projected The output of <code>project(instance, projected)</code>.
+   * @param out       Receives the indices of the visible polygons, in model order. Must hold at
+   *                  least <code>length()</code> values.
+   * @return The number of visible polygons written to <code>out</code>.
+   */
+  public int visiblePolygons(ModelInstance instance, double[] projected, int[] out) {
+    return visiblePolygons(instance, projected, 0, out);
+  }
+
+  /**
+   * Pick out the visible polygons of an instance that was projected partway into an array.
+   *
+   * @param instance  The placed model that was projected.
+   * @param projected The output of <code>project(instance, projected, offset)</code>.
+   * @param offset    Where in <code>projected</code> the instance's first vertex is.
+   * @param out       Receives the indices of the visible polygons, in model order.
+   * @return The number of visible polygons written to <code>out</code>.
+   */
+  public int visiblePolygons(ModelInstance instance, double[] projected, int offset,
+      int[] out) {
+    Model3 model = instance.model();
+    double[] normals = model.normalData();
+    double[] planeOffsets = model.planeOffsetData();
+    int[] indices = model.indices();
+
+    // Move the camera into model space once so each polygon only needs one dot product
+    Vector3 center = model.center();
+    Vector3 translation = instance.position();
+    double wx = position.xcoord - center.xcoord - translation.xcoord;
+    double wz = position.zcoord - center.zcoord - translation.zcoord;
+    double camX = wx * instance.cosYaw() - wz * instance.sinYaw() + center.xcoord;
+    double camY = position.ycoord - translation.ycoord;
+    double camZ = wx * instance.sinYaw() + wz * instance.cosYaw() + center.zcoord;
+
+    int visible = 0;
+    for (int i = 0; i < model.length(); i++) {
+      if (normals[i * 3] * camX + normals[i * 3 + 1] * camY + normals[i * 3 + 2] * camZ
+          <= planeOffsets[i]) {
+        continue;
+      }
+
+      boolean behind = false;
+      boolean left = true;
+      boolean right = true;
+      boolean below = true;
+      boolean above = true;
+      for (int j = model.polygonStart(i); j < model.polygonStart(i + 1); j++) {
+        int vertex = offset + indices[j] * 3;
+        double x = projected[vertex];
+        double y = projected[vertex + 1];
+        behind |= projected[vertex + 2] < 0;
+        left &= x < -VIEW_HALF_WIDTH;
+        right &= x > VIEW_HALF_WIDTH;
+        below &= y < -VIEW_HALF_HEIGHT;
+        above &= y > VIEW_HALF_HEIGHT;
+      }
+      if (behind || left || right || below || above) {
+        continue;
+      }
+      out[visible++] = i;
+    }
+    return visible;
+  }
+
+  /**
+   * Transform and project a batch of vertices. Large batches are split across cores.
+   */
+  private static void project(double[] vertices, int count, double[] matrix, double[] out,
+      int offset) {
+    if (count < PARALLEL_VERTEX_THRESHOLD) {
+      project(vertices, 0, count, matrix, out, offset);
+      return;
+    }
+    int chunks = (count + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+    IntStream.range(0, chunks).parallel().forEach(chunk -> project(vertices,
+        chunk * PARALLEL_CHUNK_SIZE, Math.min(count, (chunk + 1) * PARALLEL_CHUNK_SIZE), matrix,
+        out, offset));
+  }
+
+  private static void project(double[] vertices, int start, int end, double[] matrix,
+      double[] out, int offset) {
+    double m00 = matrix[0];
+    double m01 = matrix[1];
+    double m02 = matrix[2];
+    double m03 = matrix[3];
+    double m10 = matrix[4];
+    double m11 = matrix[5];
+    double m12 = matrix[6];
+    double m13 = matrix[7];
+    double m20 = matrix[8];
+    double m21 = matrix[9];
+    double m22 = matrix[10];
+    double m23 = matrix[11];
+    for (int i = start * 3; i < end * 3; i += 3) {
+      double x = vertices[i];
+      double y = vertices[i + 1];
+      double z = vertices[i + 2];
+      double right = m00 * x + m01 * y + m02 * z + m03;
+      double up = m10 * x + m11 * y + m12 * z + m13;
+      double forward = m20 * x + m21 * y + m22 * z + m23;
+      int o = offset + i;
+      if (forward == 0 && right == 0 && up == 0) {
+        // The point is the camera itself
+        out[o] = 0;
+        out[o + 1] = 0;
+        out[o + 2] = 0;
+        continue;
+      }
+      // Dividing by the distance along the look vector projects the point onto the plane that is
+      // 1 unit from the camera. This obviously isn't the distance formula but since we're only
+      // using the depth comparatively, it's ok to square it and save ourselves the square root.
+      // Points behind the camera get negative depths.
+      double scale = 1 / Math.abs(forward);
+      out[o] = right * scale;
+      out[o + 1] = up * scale;
+      out[o + 2] = forward * Math.abs(forward);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package dodgeball.render;
+
+import java.util.Arrays;
+
+/**
+ * Sorts polygons into painter's order (farthest first) by precomputed depth keys. Each key packs a
+ * polygon's depth and its index into one <code>long</code>, so sorting is a primitive sort with no
+ * comparator and no repeated depth lookups. Large lists are radix sorted.
+ *
+ * <p>In incremental mode the sorter remembers the last order it produced and starts from it,
+ * fixing it up with an insertion sort. Since the scene barely changes between frames, that's
+ * close to linear time. If the order turns out to have changed a lot, it falls back to a full
+ * sort. A DepthSorter reuses its buffers between calls and isn't thread-safe.
+ */
+public class DepthSorter {
+  /** Lists at least this long are radix sorted instead of using <code>Arrays.sort</code>. */
+  public static final int RADIX_THRESHOLD = 2048;
+  private static final int RADIX_BITS = 16;
+  private static final int BUCKETS = 1 << RADIX_BITS;
+  /** Insertion sort gives up once it has moved this many keys per polygon on average. */
+  private static final int INCREMENTAL_SHIFT_BUDGET = 8;
+
+  private boolean incremental;
+  private long[] keys = new long[0];
+  private long[] scratch = new long[0];
+  private int[] counts;
+  private int[] order = new int[0];
+  private int previousCount = -1;
+
+  /**
+   * Create a sorter.
+   *
+   * @param incremental Whether each sort should start from the previous sort's order.
+   */
+  public DepthSorter(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  public boolean incremental() {
+    return incremental;
+  }
+
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+    previousCount = -1;
+  }
+
+  /**
+   * Sort polygons by depth, farthest first. Ties are broken by index.
+   *
+   * @param depths The depth of each polygon, usually its minimum z after projection.
+   * @param count  The number of polygons.
+   * @return The polygon indices in drawing order. The array is reused by the next call and may
+   *         be longer than <code>count</code>.
+   */
+  public int[] sort(double[] depths, int count) {
+    if (keys.length < count) {
+      int capacity = Math.max(count, keys.length * 2);
+      keys = new long[capacity];
+      order = new int[capacity];
+    }
+
+    if (incremental && count == previousCount) {
+      for (int i = 0; i < count; i++) {
+        keys[i] = key(depths[order[i]], order[i]);
+      }
+      if (!insertionSort(keys, count, (long) INCREMENTAL_SHIFT_BUDGET * count)) {
+        sortKeys(count);
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        keys[i] = key(depths[i], i);
+      }
+      sortKeys(count);
+    }
+
+    for (int i = 0; i < count; i++) {
+      order[i] = index(keys[i]);
+    }
+    previousCount = count;
+    return order;
+  }
+
+  /**
+   * Pack a depth and an index into a key that sorts farthest first. The depth is narrowed to a
+   * float, which is plenty to order polygons, and takes the high 32 bits; the index takes the low
+   * 32 bits.
+   *
+   * @param depth The polygon's depth.
+   * @param index The polygon's index. Must be non-negative.
+   * @return The sort key.
+   */
+  public static long key(double depth, int index) {
+    int bits = Float.floatToIntBits((float) depth);
+    // Make the bits order like the floats do when compared as signed ints
+    if (bits < 0) {
+      bits ^= 0x7FFFFFFF;
+    }
+    return ((long) ~bits << 32) | index;
+  }
+
+  /**
+   * Get the index back out of a sort key.
+   *
+   * @param key A key made by <code>key</code>.
+   * @return The index packed into the key.
+   */
+  public static int index(long key) {
+    return (int) key;
+  }
+
+  private void sortKeys(int count) {
+    if (count < RADIX_THRESHOLD) {
+      Arrays.sort(keys, 0, count);
+    } else {
+      radixSort(count);
+    }
+  }
+
+  /**
+   * LSD radix sort on 16-bit digits. Digits that are the same for every key, like the high bits
+   * of the indices, are skipped.
+   */
+  private void radixSort(int count) {
+    if (scratch.length < keys.length) {
+      scratch = new long[keys.length];
+    }
+    if (counts == null) {
+      counts = new int[BUCKETS];
+    }
+    long[] from = keys;
+    long[] to = scratch;
+    for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+      // Flip the sign bit on the top digit so negative keys come first
+      long flip = shift + RADIX_BITS == 64 ? 1L << 63 : 0;
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < count; i++) {
+        counts[(int) (((from[i] ^ flip) >>> shift) & (BUCKETS - 1))]++;
+      }
+      if (counts[(int) (((from[0] ^ flip) >>> shift) & (BUCKETS - 1))] == count) {
+        continue;
+      }
+      int total = 0;
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        int bucketCount = counts[bucket];
+        counts[bucket] = total;
+        total += bucketCount;
+      }
+      for (int i = 0; i < count; i++) {
+        to[counts[(int) (((from[i] ^ flip) >>> shift) & (BUCKETS - 1))]++] = from[i];
+      }
+      long[] temp = from;
+      from = to;
+      to = temp;
+    }
+    if (from != keys) {
+      System.arraycopy(from, 0, keys, 0, count);
+    }
+  }
+
+  /**
+   * Insertion sort that gives up after moving <code>budget</code> keys.
+   *
+   * @return <code>true</code> if the keys are now sorted; <code>false</code> if it gave up.
+   */
+  private static boolean insertionSort(long[] keys, int count, long budget) {
+    for (int i = 1; i < count; i++) {
+      long key = keys[i];
+      int j = i - 1;
+      while (j >= 0 && keys[j] > key) {
+        keys[j + 1] = keys[j];
+        j--;
+        if (--budget < 0) {
+          keys[j + 1] = key;
+          return false;
+        }
+      }
+      keys[j + 1] = key;
+    }
+    return true;
+  }
+}
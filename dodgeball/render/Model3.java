@@ -0,0 +1,809 @@
+package dodgeball.render;
+
+import dodgeball.game.Vector3;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * A 3D model composed of several 3D polygons. Vertices are stored in one flat array of x, y, and z
+ * coordinates, and each polygon is a run of indices into that array, so a Camera can transform a
+ * whole model in one tight loop.
+ *
+ * <p>A Model3 can also carry coarser versions of itself, its detail levels, for drawing when it's
+ * too far away for the full mesh to matter. Level 0 is always the model itself.
+ *
+ * @author Andrew Yim
+ * @version 11-13-2023
+ */
+public class Model3 implements Cloneable {
+  // "MD32" read as a big-endian int. No version 1 file has this many polygons.
+  private static final int FORMAT_MAGIC = 0x4D443332;
+
+  private Vector3 center;
+  private int length;
+  private double[] vertices; // x, y, z of each vertex
+  private int vertexCount;
+  private int[] indices;
+  private int[] polygonStarts; // polygon i uses indices[polygonStarts[i]] to [polygonStarts[i+1]]
+  private int[] colors; // packed as 0xRRGGBB
+  // Derived from the vertices by updateGeometry()
+  private double[] normals; // unit normal of each polygon, facing away from the model's middle
+  private double[] planeOffsets; // normal dot any point on the polygon
+  private Vector3 boundsCenter;
+  private double boundingRadius;
+  private Model3[] levels = { this };
+  private BspTree bsp; // built the first time it's asked for
+
+  /**
+   * Define a Model3 in terms of an array containing its polygons as Polygon3s.
+   */
+  public Model3(Vector3 center, Polygon3[] polygons) {
+    this.center = center;
+    length = polygons.length;
+    polygonStarts = new int[length + 1];
+    colors = new int[length];
+    for (int i = 0; i < length; i++) {
+      polygonStarts[i + 1] = polygonStarts[i] + polygons[i].length();
+      colors[i] = polygons[i].color();
+    }
+    vertexCount = polygonStarts[length];
+    vertices = new double[vertexCount * 3];
+    indices = new int[vertexCount];
+    for (int i = 0; i < length; i++) {
+      for (int j = 0; j < polygons[i].length(); j++) {
+        int vertex = polygonStarts[i] + j;
+        Vector3 point = polygons[i].point(j);
+        vertices[vertex * 3] = point.xcoord;
+        vertices[vertex * 3 + 1] = point.ycoord;
+        vertices[vertex * 3 + 2] = point.zcoord;
+        indices[vertex] = vertex;
+      }
+    }
+    updateGeometry();
+  }
+
+  /**
+   * Define a Model3 directly from its flat arrays, which it takes ownership of.
+   */
+  Model3(Vector3 center, double[] vertices, int[] indices, int[] polygonStarts, int[] colors) {
+    this.center = center;
+    this.vertices = vertices;
+    this.indices = indices;
+    this.polygonStarts = polygonStarts;
+    this.colors = colors;
+    length = colors.length;
+    vertexCount = vertices.length / 3;
+    updateGeometry();
+  }
+
+  /**
+   * Copy a Model3. The copy has no detail levels besides itself.
+   */
+  private Model3(Model3 model) {
+    center = model.center;
+    length = model.length;
+    vertices = model.vertices.clone();
+    vertexCount = model.vertexCount;
+    indices = model.indices;
+    polygonStarts = model.polygonStarts;
+    colors = model.colors.clone();
+    normals = model.normals;
+    planeOffsets = model.planeOffsets;
+    boundsCenter = model.boundsCenter;
+    boundingRadius = model.boundingRadius;
+  }
+
+  /**
+   * Import a Model3 object from a .md3 file. The file is memory-mapped and read straight into the
+   * model's arrays, in whichever version it was written.
+   *
+   * <p>Version 1 files, as written by <code>designModel</code>, are big-endian: the number of
+   * polygons, then for each polygon its number of points, the x, y, and z coordinates of each
+   * point as doubles, and the R, G, and B values of its color as ints.
+   *
+   * <p>Version 2 files, as written by <code>save</code>, are little-endian and start with the
+   * bytes "MD32" and the version number. Then come the vertex, index, and polygon counts, the
+   * bounding sphere's center and radius, every distinct vertex once as three floats, each
+   * polygon's start in the index list (plus one end marker), the indices, each polygon's color
+   * packed as 0xRRGGBB, and finally each polygon's normal and plane offset as floats.
+   *
+   * @param file A File object containing the desired data.
+   */
+  public Model3(File file) throws FileNotFoundException, IOException {
+    this(map(file));
+  }
+
+  /**
+   * Import a Model3 object from the contents of a .md3 file, in either version.
+   *
+   * @param data The file's bytes, from the buffer's position to its limit. The buffer itself is
+   *             left untouched.
+   * @throws IOException if the data is truncated, or its counts, polygons, indices, or colors
+   *                     don't make a valid model.
+   */
+  public Model3(ByteBuffer data) throws IOException {
+    center = Vector3.ZERO;
+    ByteBuffer buffer = data.slice();
+    try {
+      if (buffer.remaining() >= 4 && buffer.getInt(0) == FORMAT_MAGIC) {
+        readVersion2(buffer);
+      } else {
+        readVersion1(buffer);
+      }
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("Model data is truncated or corrupt", e);
+    }
+  }
+
+  /**
+   * Memory-map a whole file for reading.
+   *
+   * @param file The file to map.
+   * @return A read-only buffer over the file's contents.
+   */
+  public static MappedByteBuffer map(File file) throws FileNotFoundException, IOException {
+    if (!file.isFile()) {
+      throw new FileNotFoundException(file.getPath());
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private void readVersion1(ByteBuffer buffer) throws IOException {
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    length = buffer.getInt();
+    // Each polygon takes at least its point count, three points, and a color
+    if (length < 0 || length > buffer.remaining() / (Integer.BYTES * 4 + Double.BYTES * 9)) {
+      throw new IOException("Polygon count " + length + " doesn't fit the data");
+    }
+    polygonStarts = new int[length + 1];
+    colors = new int[length];
+    vertices = new double[length * 12];
+    for (int i = 0; i < length; i++) {
+      int numPoints = buffer.getInt();
+      if (numPoints < 3
+          || numPoints > (buffer.remaining() - Integer.BYTES * 3) / (Double.BYTES * 3)) {
+        throw new IOException("Polygon " + i + " has a point count of " + numPoints
+            + ", which is too few or doesn't fit the data");
+      }
+      polygonStarts[i + 1] = polygonStarts[i] + numPoints;
+      if (vertices.length < polygonStarts[i + 1] * 3) {
+        vertices = Arrays.copyOf(vertices, Math.max(vertices.length * 2, polygonStarts[i + 1] * 3));
+      }
+      buffer.asDoubleBuffer().get(vertices, polygonStarts[i] * 3, numPoints * 3);
+      buffer.position(buffer.position() + numPoints * 3 * Double.BYTES);
+      int r = buffer.getInt();
+      int g = buffer.getInt();
+      int b = buffer.getInt();
+      colors[i] = packColor(r, g, b);
+    }
+
+    vertexCount = polygonStarts[length];
+    vertices = Arrays.copyOf(vertices, vertexCount * 3);
+    indices = new int[vertexCount];
+    for (int i = 0; i < vertexCount; i++) {
+      indices[i] = i;
+    }
+    updateGeometry();
+  }
+
+  /**
+   * Pack a color's components into one int, as 0xRRGGBB.
+   *
+   * @throws IOException if a component is outside [0, 255].
+   */
+  private static int packColor(int r, int g, int b) throws IOException {
+    if ((r | g | b) < 0 || r > 255 || g > 255 || b > 255) {
+      throw new IOException("Color components out of range: " + r + ", " + g + ", " + b);
+    }
+    return (r << 16) | (g << 8) | b;
+  }
+
+  private void readVersion2(ByteBuffer buffer) throws IOException {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.position(4);
+    int version = buffer.getInt();
+    if (version != 2) {
+      throw new IOException("Unsupported .md3 version " + version);
+    }
+    vertexCount = buffer.getInt();
+    int indexCount = buffer.getInt();
+    length = buffer.getInt();
+    boundsCenter = new Vector3(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+    boundingRadius = buffer.getFloat();
+    if ((vertexCount | indexCount | length) < 0) {
+      throw new IOException("Negative count: " + vertexCount + " vertices, " + indexCount
+          + " indices, " + length + " polygons");
+    }
+    // Vertices, polygon starts, indices, colors, normals, and plane offsets, four bytes each
+    long needed = ((long) vertexCount * 3 + length + 1 + indexCount + length * 5L) * 4;
+    if (needed > buffer.remaining()) {
+      throw new IOException("Model data is truncated: " + needed
+          + " bytes needed after the header, " + buffer.remaining() + " left");
+    }
+
+    vertices = readFloats(buffer, vertexCount * 3);
+    polygonStarts = readInts(buffer, length + 1);
+    if (polygonStarts[0] != 0) {
+      throw new IOException("First polygon starts at " + polygonStarts[0] + " instead of 0");
+    }
+    for (int i = 0; i < length; i++) {
+      if ((long) polygonStarts[i + 1] - polygonStarts[i] < 3) {
+        throw new IOException("Polygon " + i + " has fewer than 3 vertices");
+      }
+    }
+    indices = readInts(buffer, indexCount);
+    colors = readInts(buffer, length);
+    for (int i = 0; i < length; i++) {
+      colors[i] &= 0xFFFFFF;
+    }
+    normals = readFloats(buffer, length * 3);
+    planeOffsets = readFloats(buffer, length);
+
+    if (polygonStarts[length] != indexCount) {
+      throw new IOException("Polygons don't cover the index list");
+    }
+    for (int index : indices) {
+      if (index < 0 || index >= vertexCount) {
+        throw new IOException("Vertex index " + index + " is out of range");
+      }
+    }
+  }
+
+  private static double[] readFloats(ByteBuffer buffer, int count) {
+    float[] floats = new float[count];
+    buffer.asFloatBuffer().get(floats);
+    buffer.position(buffer.position() + count * Float.BYTES);
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = floats[i];
+    }
+    return values;
+  }
+
+  private static int[] readInts(ByteBuffer buffer, int count) {
+    int[] values = new int[count];
+    buffer.asIntBuffer().get(values);
+    buffer.position(buffer.position() + count * Integer.BYTES);
+    return values;
+  }
+
+  /**
+   * Import a Model3 along with any detail levels stored beside it. Level n of
+   * <code>Name.md3</code> is read from <code>Name.lodn.md3</code> in the same folder, counting
+   * up from 1 until a file is missing.
+   *
+   * @param file The .md3 file of the full-detail model.
+   * @return The model, with its detail levels attached.
+   */
+  public static Model3 load(File file) throws FileNotFoundException, IOException {
+    Model3 model = new Model3(file);
+    String name = file.getName();
+    String base = name.endsWith(".md3") ? name.substring(0, name.length() - 4) : name;
+    List<Model3> coarser = new ArrayList<Model3>();
+    File level = new File(file.getParentFile(), base + ".lod1.md3");
+    while (level.isFile()) {
+      coarser.add(new Model3(level));
+      level = new File(file.getParentFile(), base + ".lod" + (coarser.size() + 1) + ".md3");
+    }
+    model.setLevels(coarser.toArray(new Model3[0]));
+    return model;
+  }
+
+  @Override
+  public Model3 clone() {
+    return new Model3(this);
+  }
+
+  /**
+   * Get the number of Polygon3s contained by the Model3.
+   *
+   * @return The number of Polygon3s in the Model3 as an int.
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Get the number of distinct vertices in the Model3.
+   *
+   * @return The number of vertices as an int.
+   */
+  public int vertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Get an array containing all the Polygon3s in the Model3.
+   *
+   * @return A Polygon3[] containing all the Polygon3s in the Model3.
+   */
+  public Polygon3[] polygons() {
+    Polygon3[] polygons = new Polygon3[length];
+    for (int i = 0; i < length; i++) {
+      polygons[i] = polygon(i);
+    }
+    return polygons;
+  }
+
+  /**
+   * Get a specific Polygon3 in the Model3.
+   *
+   * @param index The index of the desired Polygon3.
+   * @return The Polygon3 at that index.
+   */
+  public Polygon3 polygon(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of the range [0, "
+          + (length - 1) + "]");
+    }
+    int start = polygonStarts[index];
+    double[] coords = new double[(polygonStarts[index + 1] - start) * 3];
+    for (int j = 0; j < coords.length; j += 3) {
+      System.arraycopy(vertices, indices[start + j / 3] * 3, coords, j, 3);
+    }
+    return new Polygon3(coords, colors[index]);
+  }
+
+  /**
+   * Get the index of the first entry in <code>indices()</code> that belongs to a polygon. The
+   * polygon's vertices run up to, but not including, <code>polygonStart(index + 1)</code>.
+   *
+   * @param index The index of the polygon, from 0 to <code>length()</code> inclusive.
+   * @return The polygon's first position in the index list.
+   */
+  public int polygonStart(int index) {
+    return polygonStarts[index];
+  }
+
+  /**
+   * Get the vertex indices of every polygon, one run per polygon. Shared with the Model3; must not
+   * be modified.
+   *
+   * @return The Model3's index list.
+   */
+  public int[] indices() {
+    return indices;
+  }
+
+  /**
+   * Get the fill color of a specific polygon.
+   *
+   * @param index The index of the polygon.
+   * @return The polygon's fill color, packed as 0xRRGGBB.
+   */
+  public int color(int index) {
+    return colors[index];
+  }
+
+  /**
+   * Get the center of the Model3's bounding sphere, which is the middle of its bounding box.
+   *
+   * @return The center of the bounding sphere.
+   */
+  public Vector3 boundsCenter() {
+    return boundsCenter;
+  }
+
+  /**
+   * Get the radius of the smallest sphere around <code>boundsCenter()</code> that holds every
+   * vertex.
+   *
+   * @return The radius of the bounding sphere.
+   */
+  public double boundingRadius() {
+    return boundingRadius;
+  }
+
+  /**
+   * Get a BSP tree over the model's polygons, for drawing it as static geometry. The tree is
+   * built the first time this is called and kept until the model is moved.
+   *
+   * @return The model's BSP tree.
+   */
+  public synchronized BspTree bsp() {
+    if (bsp == null) {
+      bsp = new BspTree(this);
+    }
+    return bsp;
+  }
+
+  /**
+   * Get the number of detail levels, counting the model itself.
+   *
+   * @return The number of levels, at least 1.
+   */
+  public int levelCount() {
+    return levels.length;
+  }
+
+  /**
+   * Get one of the model's detail levels.
+   *
+   * @param level The level, from 0 for this model to <code>levelCount() - 1</code> for the
+   *              coarsest.
+   * @return The Model3 to draw at that level.
+   */
+  public Model3 level(int level) {
+    if (level < 0 || level >= levels.length) {
+      throw new IndexOutOfBoundsException("Level " + level + " is out of the range [0, "
+          + (levels.length - 1) + "]");
+    }
+    return levels[level];
+  }
+
+  /**
+   * Replace the model's detail levels. The levels should share the model's center so that they
+   * rotate the same way.
+   *
+   * @param coarser The levels below this one, from finest to coarsest.
+   */
+  public void setLevels(Model3... coarser) {
+    Model3[] chain = new Model3[coarser.length + 1];
+    chain[0] = this;
+    System.arraycopy(coarser, 0, chain, 1, coarser.length);
+    levels = chain;
+  }
+
+  /**
+   * Make a coarser copy of the model by vertex clustering. Every vertex is snapped to the average
+   * of the vertices sharing its cell of a grid, then polygons that collapse to fewer than three
+   * corners, and repeats of polygons already kept, are dropped. Each surviving polygon keeps its
+   * color.
+   *
+   * @param cellSize The width of a grid cell. Detail smaller than this is lost.
+   * @return The simplified model. It has the same center as this one and no detail levels.
+   */
+  public Model3 simplify(double cellSize) {
+    double originX = boundsCenter.xcoord - boundingRadius;
+    double originY = boundsCenter.ycoord - boundingRadius;
+    double originZ = boundsCenter.zcoord - boundingRadius;
+    Map<Long, Integer> cells = new HashMap<Long, Integer>();
+    int[] cluster = new int[vertexCount];
+    double[] sums = new double[vertexCount * 3];
+    int[] counts = new int[vertexCount];
+    for (int i = 0; i < vertexCount; i++) {
+      long cellX = (long) Math.floor((vertices[i * 3] - originX) / cellSize);
+      long cellY = (long) Math.floor((vertices[i * 3 + 1] - originY) / cellSize);
+      long cellZ = (long) Math.floor((vertices[i * 3 + 2] - originZ) / cellSize);
+      long key = (cellX << 42) | (cellY << 21) | cellZ;
+      Integer id = cells.get(key);
+      if (id == null) {
+        id = cells.size();
+        cells.put(key, id);
+      }
+      cluster[i] = id;
+      sums[id * 3] += vertices[i * 3];
+      sums[id * 3 + 1] += vertices[i * 3 + 1];
+      sums[id * 3 + 2] += vertices[i * 3 + 2];
+      counts[id]++;
+    }
+    double[] newVertices = new double[cells.size() * 3];
+    for (int id = 0; id < cells.size(); id++) {
+      for (int axis = 0; axis < 3; axis++) {
+        newVertices[id * 3 + axis] = sums[id * 3 + axis] / counts[id];
+      }
+    }
+
+    int[] newIndices = new int[indices.length];
+    int[] newStarts = new int[length + 1];
+    int[] newColors = new int[length];
+    Set<List<Integer>> kept = new HashSet<List<Integer>>();
+    int newLength = 0;
+    int used = 0;
+    for (int i = 0; i < length; i++) {
+      int start = used;
+      for (int j = polygonStarts[i]; j < polygonStarts[i + 1]; j++) {
+        int id = cluster[indices[j]];
+        if (used == start || newIndices[used - 1] != id) {
+          newIndices[used++] = id;
+        }
+      }
+      while (used - start > 1 && newIndices[used - 1] == newIndices[start]) {
+        used--;
+      }
+      List<Integer> corners = new ArrayList<Integer>();
+      for (int j = start; j < used; j++) {
+        corners.add(newIndices[j]);
+      }
+      corners.sort(null);
+      if (used - start < 3 || !kept.add(corners)) {
+        used = start;
+        continue;
+      }
+      newColors[newLength] = colors[i];
+      newLength++;
+      newStarts[newLength] = used;
+    }
+    return new Model3(center, newVertices, Arrays.copyOf(newIndices, used),
+        Arrays.copyOf(newStarts, newLength + 1), Arrays.copyOf(newColors, newLength));
+  }
+
+  /**
+   * Write the model to a version 2 .md3 file. Vertices that land on the same float coordinates
+   * are merged into one, so a model read from a version 1 file shrinks to its distinct corners.
+   * Detail levels are not written.
+   *
+   * <p>The data goes to a temporary file beside <code>file</code>, which is then moved over it, so
+   * a reader never sees the file half written. That doesn't release a mapping of the old file,
+   * though, and Windows won't replace a mapped file, so a model being rewritten in place should be
+   * read into memory rather than with <code>Model3(File)</code>.
+   *
+   * @param file The file to write. Replaced if it already exists.
+   */
+  public void save(File file) throws IOException {
+    Map<List<Float>, Integer> distinct = new HashMap<List<Float>, Integer>();
+    float[] packed = new float[vertexCount * 3];
+    int[] remapped = new int[vertexCount];
+    for (int i = 0; i < vertexCount; i++) {
+      List<Float> key = List.of((float) vertices[i * 3], (float) vertices[i * 3 + 1],
+          (float) vertices[i * 3 + 2]);
+      Integer id = distinct.get(key);
+      if (id == null) {
+        id = distinct.size();
+        distinct.put(key, id);
+        for (int axis = 0; axis < 3; axis++) {
+          packed[id * 3 + axis] = key.get(axis);
+        }
+      }
+      remapped[i] = id;
+    }
+    int packedCount = distinct.size();
+
+    ByteBuffer buffer = ByteBuffer.allocate(9 * 4 + packedCount * 12 + (length + 1) * 4
+        + indices.length * 4 + length * 4 + length * 16).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.order(ByteOrder.BIG_ENDIAN).putInt(FORMAT_MAGIC).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(2);
+    buffer.putInt(packedCount);
+    buffer.putInt(indices.length);
+    buffer.putInt(length);
+    buffer.putFloat((float) boundsCenter.xcoord);
+    buffer.putFloat((float) boundsCenter.ycoord);
+    buffer.putFloat((float) boundsCenter.zcoord);
+    // Round up so the vertices, rounded to floats, are still inside
+    buffer.putFloat(Math.nextUp((float) boundingRadius));
+    buffer.asFloatBuffer().put(packed, 0, packedCount * 3);
+    buffer.position(buffer.position() + packedCount * 12);
+    buffer.asIntBuffer().put(polygonStarts, 0, length + 1);
+    buffer.position(buffer.position() + (length + 1) * 4);
+    for (int index : indices) {
+      buffer.putInt(remapped[index]);
+    }
+    for (int i = 0; i < length; i++) {
+      buffer.putInt(colors[i]);
+    }
+    for (int i = 0; i < length * 3; i++) {
+      buffer.putFloat((float) normals[i]);
+    }
+    for (int i = 0; i < length; i++) {
+      buffer.putFloat((float) planeOffsets[i]);
+    }
+    buffer.flip();
+
+    Path target = file.toPath().toAbsolutePath();
+    Path temporary = target.resolveSibling(file.getName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      try {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * The flat x, y, z unit normal of each polygon. A zero normal marks a polygon that should be
+   * drawn from both sides.
+   */
+  double[] normalData() {
+    return normals;
+  }
+
+  /**
+   * The dot product of each polygon's normal with its vertices. A point p is in front of polygon
+   * i exactly when normal(i) dot p exceeds planeOffset(i).
+   */
+  double[] planeOffsetData() {
+    return planeOffsets;
+  }
+
+  /**
+   * The flat x, y, z vertex array, shared with the Model3. Used by Camera to project the whole
+   * model at once.
+   */
+  double[] vertexData() {
+    return vertices;
+  }
+
+  /**
+   * Translates the Model3 along the given Vector3. Operates in-place; does not
+   * return a new
+   * Model3 object.
+   *
+   * @param vector The vector along which the Model3 should be translated.
+   */
+  public void translate(Vector3 vector) {
+    center = center.add(vector);
+    for (int i = 0; i < vertexCount * 3; i += 3) {
+      vertices[i] += vector.xcoord;
+      vertices[i + 1] += vector.ycoord;
+      vertices[i + 2] += vector.zcoord;
+    }
+    updateGeometry();
+  }
+
+  /**
+   * Rotates the Model3 around its center.
+   *
+   * @param yaw The number of degrees the Model3 should be rotated clockwise by.
+   */
+  public void rotate(double yaw) {
+    yaw = -Math.toRadians(yaw);
+    double sinYaw = Math.sin(yaw);
+    double cosYaw = Math.cos(yaw);
+    for (int i = 0; i < vertexCount * 3; i += 3) {
+      double x0 = vertices[i] - center.xcoord;
+      double z0 = vertices[i + 2] - center.zcoord;
+      vertices[i] = x0 * cosYaw + z0 * sinYaw + center.xcoord;
+      vertices[i + 2] = -x0 * sinYaw + z0 * cosYaw + center.zcoord;
+    }
+    updateGeometry();
+  }
+
+  /**
+   * Recompute the bounding sphere and polygon normals from the vertices.
+   *
+   * <p>Polygon winding in .md3 files isn't consistent, so normals aren't taken from the winding.
+   * Instead, each one is flipped to face away from the middle of the model, which is right for
+   * the convex shapes the game uses. A polygon whose plane runs through the middle, like a tile of
+   * a flat floor, can't be oriented that way and gets a zero normal so it's drawn from both sides.
+   */
+  private void updateGeometry() {
+    bsp = null;
+    double[] bounds = { Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE,
+        Double.MAX_VALUE, -Double.MAX_VALUE };
+    for (int i = 0; i < vertexCount * 3; i += 3) {
+      for (int axis = 0; axis < 3; axis++) {
+        bounds[axis * 2] = Math.min(bounds[axis * 2], vertices[i + axis]);
+        bounds[axis * 2 + 1] = Math.max(bounds[axis * 2 + 1], vertices[i + axis]);
+      }
+    }
+    if (vertexCount == 0) {
+      bounds = new double[6];
+    }
+    double midX = (bounds[0] + bounds[1]) / 2;
+    double midY = (bounds[2] + bounds[3]) / 2;
+    double midZ = (bounds[4] + bounds[5]) / 2;
+    boundsCenter = new Vector3(midX, midY, midZ);
+    double radiusSquared = 0;
+    for (int i = 0; i < vertexCount * 3; i += 3) {
+      double dx = vertices[i] - midX;
+      double dy = vertices[i + 1] - midY;
+      double dz = vertices[i + 2] - midZ;
+      radiusSquared = Math.max(radiusSquared, dx * dx + dy * dy + dz * dz);
+    }
+    boundingRadius = Math.sqrt(radiusSquared);
+
+    normals = new double[length * 3];
+    planeOffsets = new double[length];
+    for (int i = 0; i < length; i++) {
+      // Newell's method, which copes with any number of vertices
+      double nx = 0;
+      double ny = 0;
+      double nz = 0;
+      int start = polygonStarts[i];
+      int end = polygonStarts[i + 1];
+      for (int j = start; j < end; j++) {
+        int current = indices[j] * 3;
+        int next = indices[j + 1 == end ? start : j + 1] * 3;
+        nx += (vertices[current + 1] - vertices[next + 1])
+            * (vertices[current + 2] + vertices[next + 2]);
+        ny += (vertices[current + 2] - vertices[next + 2])
+            * (vertices[current] + vertices[next]);
+        nz += (vertices[current] - vertices[next])
+            * (vertices[current + 1] + vertices[next + 1]);
+      }
+      double normalLength = Math.sqrt(nx * nx + ny * ny + nz * nz);
+      int first = indices[start] * 3;
+      double facing = normalLength == 0 ? 0 : (nx * (vertices[first] - midX)
+          + ny * (vertices[first + 1] - midY) + nz * (vertices[first + 2] - midZ)) / normalLength;
+      if (Math.abs(facing) <= 1e-9 * (1 + boundingRadius)) {
+        // Two-sided: every point counts as in front
+        planeOffsets[i] = Double.NEGATIVE_INFINITY;
+        continue;
+      }
+      double sign = facing > 0 ? 1 : -1;
+      nx *= sign / normalLength;
+      ny *= sign / normalLength;
+      nz *= sign / normalLength;
+      normals[i * 3] = nx;
+      normals[i * 3 + 1] = ny;
+      normals[i * 3 + 2] = nz;
+      planeOffsets[i] = nx * vertices[first] + ny * vertices[first + 1] + nz * vertices[first + 2];
+    }
+  }
+
+  /**
+   * Write a Model3 to a .md3 file, given user input.
+   */
+  public static void designModel(String path) throws IOException {
+    Scanner reader = new Scanner(System.in);
+    System.out.print("Enter the name of the model: ");
+    File outputFile = new File(path + "/" + reader.nextLine() + ".md3");
+    outputFile.createNewFile();
+
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(outputFile)));
+
+    System.out.print("Enter the number of polygons: ");
+    int numPolys = reader.nextInt();
+    System.out.println();
+    output.writeInt(numPolys);
+
+    for (int i = 0; i < numPolys; i++) {
+      System.out.print("Enter the number of vertices: ");
+      int vertices = reader.nextInt();
+      System.out.println();
+      output.writeInt(vertices);
+      for (int j = 0; j < vertices; j++) {
+        System.out.print("x-coordinate: ");
+        output.writeDouble(reader.nextDouble());
+        System.out.println();
+        System.out.print("y-coordinate: ");
+        output.writeDouble(reader.nextDouble());
+        System.out.println();
+        System.out.print("z-coordinate: ");
+        output.writeDouble(reader.nextDouble());
+        System.out.println();
+      }
+      System.out.print("Red color value: ");
+      output.writeInt(reader.nextInt());
+      System.out.println();
+      System.out.print("Green color value: ");
+      output.writeInt(reader.nextInt());
+      System.out.println();
+      System.out.print("Blue color value: ");
+      output.writeInt(reader.nextInt());
+      System.out.println();
+    }
+    reader.close();
+    output.flush();
+    output.close();
+  }
+
+  public Vector3 center() {
+    return center;
+  }
+}
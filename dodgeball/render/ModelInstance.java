@@ -0,0 +1,104 @@
+package dodgeball.render;
+
+import dodgeball.game.Vector3;
+
+/**
+ * One placement of a shared Model3 in the world: the mesh itself plus a translation and a yaw.
+ * Many instances can share one Model3, so the mesh is never copied or modified to draw it; the
+ * transform is applied to each vertex as the Camera projects it. ModelInstance objects are
+ * immutable.
+ */
+public final class ModelInstance {
+  private final Model3 model;
+  private final Vector3 position;
+  private final double yaw;
+  private final double sinYaw;
+  private final double cosYaw;
+  private ModelInstance[] levels; // filled in as level() is asked for them
+
+  /**
+   * Place a model in the world.
+   *
+   * @param model    The shared mesh to draw.
+   * @param position Where the model's center should end up.
+   * @param yaw      The number of degrees the model should be rotated clockwise around its
+   *                 center.
+   */
+  public ModelInstance(Model3 model, Vector3 position, double yaw) {
+    this.model = model;
+    this.position = position;
+    this.yaw = yaw;
+    double radians = -Math.toRadians(yaw);
+    sinYaw = Math.sin(radians);
+    cosYaw = Math.cos(radians);
+  }
+
+  /**
+   * Place a model in the world without rotating it.
+   *
+   * @param model    The shared mesh to draw.
+   * @param position Where the model's center should end up.
+   */
+  public ModelInstance(Model3 model, Vector3 position) {
+    this(model, position, 0);
+  }
+
+  public Model3 model() {
+    return model;
+  }
+
+  public Vector3 position() {
+    return position;
+  }
+
+  public double yaw() {
+    return yaw;
+  }
+
+  public double sinYaw() {
+    return sinYaw;
+  }
+
+  public double cosYaw() {
+    return cosYaw;
+  }
+
+  /**
+   * Get this placement of one of the model's detail levels. The result is made the first time
+   * it's asked for and reused after that.
+   *
+   * @param level The detail level, from 0 for the model itself to
+   *              <code>model().levelCount() - 1</code>.
+   * @return An instance of <code>model().level(level)</code> in the same place as this one.
+   */
+  public ModelInstance level(int level) {
+    if (level == 0) {
+      return this;
+    }
+    if (levels == null) {
+      levels = new ModelInstance[model.levelCount()];
+    }
+    ModelInstance instance = levels[level];
+    if (instance == null) {
+      instance = new ModelInstance(model.level(level), position, yaw);
+      levels[level] = instance;
+    }
+    return instance;
+  }
+
+  /**
+   * Move a point from the model's space into the world. Equivalent to rotating the point around
+   * the model's center and then translating it by the instance's position.
+   *
+   * @param point A point in model space.
+   * @return The point in world space.
+   */
+  public Vector3 transform(Vector3 point) {
+    Vector3 center = model.center();
+    double x0 = point.xcoord - center.xcoord;
+    double z0 = point.zcoord - center.zcoord;
+    return new Vector3(x0 * cosYaw + z0 * sinYaw + center.xcoord + position.xcoord,
+        point.ycoord + position.ycoord,
+        -x0 * sinYaw + z0 * cosYaw + center.zcoord + position.zcoord);
+  }
+}
@@ -0,0 +1,390 @@
+package dodgeball.render;
+
+import dodgeball.game.Vector3;
+import java.util.Arrays;
+
+/**
+ * A polygon with an arbitrary number of sides in three dimensions. Defining a
+ * Polgyon3 with
+ * non-coplanar points will result in unexpected behavior, as will defining a
+ * convex Polygon3.
+ *
+ * <p>The points are stored in one flat array of x, y, z triples rather than as Vector3s. The
+ * bounds, centroid, and normal are worked out together the first time any of them is asked for,
+ * and kept until the polygon is next moved, so sorting and culling by them doesn't rescan the
+ * points on every call.
+ *
+ * @author Andrew Yim
+ * @version 11-12-2023
+ */
+public class Polygon3 implements Cloneable {
+  private int length;
+  private int color; // packed as 0xRRGGBB
+  private double[] coords; // x, y, z of each point
+  // Derived from the points by updateGeometry(), and only valid while geometryKnown is true
+  private boolean geometryKnown;
+  private final double[] bounds = new double[6]; // min x, max x, min y, max y, min z, max z
+  private final double[] centroid = new double[3];
+  private final double[] normal = new double[3];
+
+  /**
+   * Define a Polygon3 in terms of its vertices as Vector3s and its fill color, packed as
+   * 0xRRGGBB.
+   */
+  public Polygon3(Vector3[] points, int color) {
+    this.length = points.length;
+    this.coords = new double[length * 3];
+    for (int i = 0; i < length; i++) {
+      coords[i * 3] = points[i].xcoord;
+      coords[i * 3 + 1] = points[i].ycoord;
+      coords[i * 3 + 2] = points[i].zcoord;
+    }
+    this.color = color;
+  }
+
+  /**
+   * Define a Polygon3 directly from a flat array of x, y, z triples, which it takes ownership of.
+   */
+  Polygon3(double[] coords, int color) {
+    this.length = coords.length / 3;
+    this.coords = coords;
+    this.color = color;
+  }
+
+  /**
+   * Define a Polygon2 in terms of its vertices as Vector3s. Fill color defaults
+   * to black.
+   */
+  public Polygon3(Vector3[] points) {
+    this(points, 0x000000);
+  }
+
+  /**
+   * Deep copy a Polygon3.
+   */
+  @Override
+  public Polygon3 clone() {
+    return new Polygon3(coords.clone(), color);
+  }
+
+  /**
+   * Sort an array of Polygon3s in descending order of min-z coordinates. Non-destructive; the
+   * array passed in is left as it was. Each polygon's min-z is found once and packed into a sort
+   * key, so the sort itself never goes back to the polygons.
+   *
+   * @param polygons An array containing the polygons to be sorted.
+   */
+  public static Polygon3[] sort(Polygon3[] polygons) {
+    double[] depths = new double[polygons.length];
+    for (int i = 0; i < polygons.length; i++) {
+      depths[i] = polygons[i].minZ();
+    }
+    int[] order = new DepthSorter(false).sort(depths, polygons.length);
+    Polygon3[] polys = new Polygon3[polygons.length];
+    for (int i = 0; i < polys.length; i++) {
+      polys[i] = polygons[order[i]];
+    }
+    return polys;
+  }
+
+  @Override
+  public String toString() {
+    String str = "Polygon3:\nColor: " + String.format("#%06X", color);
+    for (int i = 0; i < length; i++) {
+      str += "\n" + point(i).toString();
+    }
+    return str;
+  }
+
+  /**
+   * Get the number of points the Polygon3 is composed of.
+   *
+   * @return The number of vertices in the Polygon3 as an <code>int</code>.
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Get an array containing the Polygon3's x-coordinates.
+   *
+   * @return A new double[] containing the Polygon3's x-coordinates in sequential order.
+   */
+  public double[] xcoords() {
+    double[] axis = new double[length];
+    for (int i = 0; i < length; i++) {
+      axis[i] = coords[i * 3];
+    }
+    return axis;
+  }
+
+  /**
+   * Get an array containing the Polygon3's y-coordinates.
+   *
+   * @return A new double[] containing the Polygon3's y-coordinates in sequential order.
+   */
+  public double[] ycoords() {
+    double[] axis = new double[length];
+    for (int i = 0; i < length; i++) {
+      axis[i] = coords[i * 3 + 1];
+    }
+    return axis;
+  }
+
+  /**
+   * Get an array containing the Polygon3's z-coordinates.
+   *
+   * @return A new double[] containing the Polygon3's z-coordinates in sequential order.
+   */
+  public double[] zcoords() {
+    double[] axis = new double[length];
+    for (int i = 0; i < length; i++) {
+      axis[i] = coords[i * 3 + 2];
+    }
+    return axis;
+  }
+
+  /**
+   * Get an array containing the Polygon3's vertices.
+   *
+   * @return A new Vector3[] containing the Polygon3's vertices in sequential order.
+   */
+  public Vector3[] points() {
+    Vector3[] points = new Vector3[length];
+    for (int i = 0; i < length; i++) {
+      points[i] = point(i);
+    }
+    return points;
+  }
+
+  /**
+   * Get a given one of the Polygon3's points.
+   *
+   * @param index The index number of the desired point.
+   * @return The point at the given index as a Vector3.
+   */
+  public Vector3 point(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range [0, "
+          + (length - 1) + "].");
+    }
+    return new Vector3(coords[index * 3], coords[index * 3 + 1], coords[index * 3 + 2]);
+  }
+
+  /**
+   * Get the Polygon3's fill color.
+   *
+   * @return The Polygon3's fill color, packed as 0xRRGGBB.
+   */
+  public int color() {
+    return color;
+  }
+
+  /**
+   * Set the Polygon3's fill color.
+   *
+   * @param color The desired fill color for the Polygon3, packed as 0xRRGGBB.
+   */
+  public void setColor(int color) {
+    this.color = color;
+  }
+
+  /**
+   * Translate every point in the Polygon3 by a certain displacement amount.
+   *
+   * @param displacement The desired change in x, y, and z, respectively, as a Vector3.
+   */
+  public void translate(Vector3 displacement) {
+    for (int i = 0; i < length; i++) {
+      coords[i * 3] += displacement.xcoord;
+      coords[i * 3 + 1] += displacement.ycoord;
+      coords[i * 3 + 2] += displacement.zcoord;
+    }
+    geometryKnown = false;
+  }
+
+  /**
+   * Rotate every point in the Polygon3 around a common center.
+   *
+   * @param center The center around which the Polygon3 should be rotated.
+   * @param yaw    The number of degrees of clockwise rotation desired.
+   */
+  public void rotate(Vector3 center, double yaw) {
+    yaw = -Math.toRadians(yaw);
+    rotate(center, Math.sin(yaw), Math.cos(yaw));
+  }
+
+  /**
+   * Rotate every point in the Polygon3 around a common center.
+   *
+   * @param center The center around which the Polygon3 should be rotated.
+   * @param sinYaw The sine of the desired rotation angle.
+   * @param cosYaw The cosine of the desired rotation angle.
+   */
+  public void rotate(Vector3 center, double sinYaw, double cosYaw) {
+    double x0;
+    double z0;
+    for (int i = 0; i < length; i++) {
+      x0 = coords[i * 3] - center.xcoord;
+      z0 = coords[i * 3 + 2] - center.zcoord;
+      coords[i * 3] = x0 * cosYaw + z0 * sinYaw + center.xcoord;
+      coords[i * 3 + 2] = -x0 * sinYaw + z0 * cosYaw + center.zcoord;
+    }
+    geometryKnown = false;
+  }
+
+  /**
+   * Get the minimum x-value of all the points that make up the Polygon3.
+   *
+   * @return The minimum x-value of all the Polygon3's vertices as a double.
+   */
+  public double minX() {
+    updateGeometry();
+    return bounds[0];
+  }
+
+  /**
+   * Get the maximum x-value of all the points that make up the Polygon3.
+   *
+   * @return The maximum x-value of all the Polygon3's vertices as a double.
+   */
+  public double maxX() {
+    updateGeometry();
+    return bounds[1];
+  }
+
+  /**
+   * Get the minimum y-value of all the points that make up the Polygon3.
+   *
+   * @return The minimum y-value of all the Polygon3's vertices as a double.
+   */
+  public double minY() {
+    updateGeometry();
+    return bounds[2];
+  }
+
+  /**
+   * Get the maximum y-value of all the points that make up the Polygon3.
+   *
+   * @return The maximum y-value of all the Polygon3's vertices as a double.
+   */
+  public double maxY() {
+    updateGeometry();
+    return bounds[3];
+  }
+
+  /**
+   * Get the minimum z-value of all the points that make up the Polygon3.
+   *
+   * @return The minimum z-value of all the Polygon3's vertices as a double.
+   */
+  public double minZ() {
+    updateGeometry();
+    return bounds[4];
+  }
+
+  /**
+   * Get the maximum z-value of all the points that make up the Polygon3.
+   *
+   * @return The maximum z-value of all the Polygon3's vertices as a double.
+   */
+  public double maxZ() {
+    updateGeometry();
+    return bounds[5];
+  }
+
+  /**
+   * Returns a double[] containing the min x, max x, min y, max y, min z, and max z coordinates of
+   * the Polygon3 in that order.
+   *
+   * @return A double array whose elements are min-x, max-x, min-y, max-y, min-z,
+   *         and max-z.
+   */
+  public double[] bounds() {
+    updateGeometry();
+    return bounds.clone();
+  }
+
+  /**
+   * Get the average of the Polygon3's points.
+   *
+   * @return The centroid of the Polygon3's vertices as a Vector3.
+   */
+  public Vector3 centroid() {
+    updateGeometry();
+    return new Vector3(centroid[0], centroid[1], centroid[2]);
+  }
+
+  /**
+   * Get the Polygon3's unit normal. It points the way a right hand's thumb does when its fingers
+   * curl through the points in order.
+   *
+   * @return The unit normal as a Vector3, or the zero vector if the points are all in a line.
+   */
+  public Vector3 normal() {
+    updateGeometry();
+    return new Vector3(normal[0], normal[1], normal[2]);
+  }
+
+  /**
+   * Work out the bounds, centroid, and normal in one pass over the points, if the points have
+   * moved since they were last worked out. The normal uses Newell's method, which sums over every
+   * edge, so it holds up for polygons that are long and thin or slightly out of plane.
+   */
+  private void updateGeometry() {
+    if (geometryKnown) {
+      return;
+    }
+    double minX = coords[0];
+    double maxX = minX;
+    double minY = coords[1];
+    double maxY = minY;
+    double minZ = coords[2];
+    double maxZ = minZ;
+    double sumX = 0;
+    double sumY = 0;
+    double sumZ = 0;
+    double normalX = 0;
+    double normalY = 0;
+    double normalZ = 0;
+    for (int i = 0; i < length; i++) {
+      double x = coords[i * 3];
+      double y = coords[i * 3 + 1];
+      double z = coords[i * 3 + 2];
+      minX = Math.min(minX, x);
+      maxX = Math.max(maxX, x);
+      minY = Math.min(minY, y);
+      maxY = Math.max(maxY, y);
+      minZ = Math.min(minZ, z);
+      maxZ = Math.max(maxZ, z);
+      sumX += x;
+      sumY += y;
+      sumZ += z;
+      int next = (i + 1) % length * 3;
+      double nextX = coords[next];
+      double nextY = coords[next + 1];
+      double nextZ = coords[next + 2];
+      normalX += (y - nextY) * (z + nextZ);
+      normalY += (z - nextZ) * (x + nextX);
+      normalZ += (x - nextX) * (y + nextY);
+    }
+    bounds[0] = minX;
+    bounds[1] = maxX;
+    bounds[2] = minY;
+    bounds[3] = maxY;
+    bounds[4] = minZ;
+    bounds[5] = maxZ;
+    centroid[0] = sumX / length;
+    centroid[1] = sumY / length;
+    centroid[2] = sumZ / length;
+    double normalLength = Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+    if (normalLength > 0) {
+      normal[0] = normalX / normalLength;
+      normal[1] = normalY / normalLength;
+      normal[2] = normalZ / normalLength;
+    } else {
+      Arrays.fill(normal, 0);
+    }
+    geometryKnown = true;
+  }
+}
@@ -6,76 +6,101 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Handles commmunications between individual clients and the server.
  */
 public class ClientHandler implements Runnable {
+  private static final long NANOS_PER_FRAME =
+      TimeUnit.MILLISECONDS.toNanos(GameManager.MS_PER_FRAME);
+
   private Player player;
   private GameManager manager;
+  private ConnectionManager connections;
   private Socket socket;
   private DataInputStream input;
   private DataOutputStream output;
+  // When the client last sent input that wasn't idle, from System.nanoTime
+  private long lastActive;
 
   /**
    * Construct a new client handler.
    *
    * @param manager The <code>dodgeball.server.GameManager</code> that spawned this handler.
+   * @param connections The <code>dodgeball.server.ConnectionManager</code> that owns this
+   *      handler's socket and thread.
    * @param socket The <code>jave.net.Socket</code> that this handler should use to communicate.
    * @param player The <code>dodgeball.server.Player</code> that this handler handles.
    */
-  public ClientHandler(GameManager manager, Socket socket, Player player) {
+  public ClientHandler(GameManager manager, ConnectionManager connections, Socket socket,
+      Player player) {
     this.player = player;
     this.manager = manager;
+    this.connections = connections;
     this.socket = socket;
   }
 
+  public Player player() {
+    return player;
+  }
+
+  public Socket socket() {
+    return socket;
+  }
+
+  /**
+   * Serve the client until they leave, sit idle for too long, time out, or their connection
+   * fails. Whatever happens, only this client's connection is torn down.
+   */
   @Override
   public void run() {
     try {
       input = new DataInputStream(socket.getInputStream());
       output = new DataOutputStream(socket.getOutputStream());
-    } catch (Exception e) {
-      e.printStackTrace();
-      return;
-    }
 
-    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    scheduler.scheduleAtFixedRate(() -> {
-      if (!update()) {
-        scheduler.shutdown();
+      long nextFrame = System.nanoTime();
+      lastActive = nextFrame;
+      while (update()) {
+        if (connections.idleTooLong(lastActive)) {
+          System.out.println("Player was idle for too long");
+          connections.closeIdle(this);
+          break;
+        }
+        nextFrame += NANOS_PER_FRAME;
+        long wait = nextFrame - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        } else {
+          // Running behind; don't try to catch up with a burst of frames
+          nextFrame = System.nanoTime();
+        }
       }
-    }, 0, 33, TimeUnit.MILLISECONDS);
+    } catch (SocketTimeoutException e) {
+      System.out.println("Lost connection to a player: nothing received for "
+          + ConnectionManager.READ_TIMEOUT_MS / 1000 + " seconds");
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      connections.close(this);
+    }
   }
 
-  private boolean update() {
-    try {
-      output.writeBoolean(player.hit());
+  /** Return true if the player is still playing; false otherwise. */
+  private boolean update() throws IOException {
+    output.writeBoolean(player.hit());
 
-      writeVector3(player.headPosition());
-      writeVector3(player.lookVector());
+    writeVector3(player.headPosition());
+    writeVector3(player.lookVector());
 
-      writePlayers();
-      writeDodgeballs();
+    writePlayers();
+    writeDodgeballs();
 
-      if (!readPlayerInput()) {
-        return false;
-      }
-    } catch (IOException e) {
-      e.printStackTrace();
-      try {
-        socket.close();
-      } catch (IOException ioe) {
-        ioe.printStackTrace();
-      }
-      System.exit(0);
-    }
-    return true;
+    return readPlayerInput();
   }
 
   private void writePlayers() throws IOException {
@@ -109,7 +134,6 @@ public class ClientHandler implements Runnable {
   private boolean readPlayerInput() throws IOException {
     boolean playing = input.readBoolean();
     if (!playing) {
-      manager.removePlayer(player);
       System.out.println("Player left");
       return false;
     }
@@ -125,15 +149,12 @@ public class ClientHandler implements Runnable {
     double mouseY = input.readDouble();
 
     // Update the central server
-    player.inputData().setW(w);
-    player.inputData().setA(a);
-    player.inputData().setS(s);
-    player.inputData().setD(d);
-    player.inputData().setSpace(space);
-    player.inputData().setC(c);
-    player.inputData().setThrowingDodgeball(click);
-    player.inputData().setMouseX(mouseX);
-    player.inputData().setMouseY(mouseY);
+    player.inputData().publish(w, a, s, d, space, c, click, mouseX, mouseY);
+
+    if (w || a || s || d || space || click || mouseX != 0 || mouseY != 0) {
+      lastActive = System.nanoTime();
+      manager.wake();
+    }
 
     return true;
   }
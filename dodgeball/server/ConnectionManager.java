@@ -0,0 +1,158 @@
+package dodgeball.server;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the socket, thread, and player behind every client connection. A connection that errors
+ * out, goes silent, or quits is torn down on its own: its player is removed, its socket is closed,
+ * and its thread goes back to a shared pool, which lets idle threads die off after a minute.
+ * Players who stay connected but stop playing are disconnected too, once they've sent nothing but
+ * idle input for the idle timeout, so an abandoned client doesn't hold a place in the arena.
+ */
+public class ConnectionManager {
+  /**
+   * How long a connection can go without any data arriving before it's taken for dead and closed.
+   * Clients send input every frame even when no keys are pressed, so this only catches dropped
+   * connections, not players who have stopped playing.
+   */
+  public static final int READ_TIMEOUT_MS = 10000;
+  /** How long a player can go without moving, looking, jumping, or throwing, by default. */
+  public static final long DEFAULT_IDLE_TIMEOUT_MS = 120000;
+
+  private GameManager manager;
+  private ThreadPoolExecutor threads;
+  private Set<ClientHandler> open;
+  private volatile long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_MS);
+  private final AtomicLong idleDisconnects = new AtomicLong();
+
+  /**
+   * Create a connection manager for a game.
+   *
+   * @param manager The <code>dodgeball.server.GameManager</code> that connected players belong to.
+   */
+  public ConnectionManager(GameManager manager) {
+    this.manager = manager;
+    threads = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    open = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Start serving a newly accepted client. The player should already have been admitted to the
+   * game; if the connection can't be started, they're removed again.
+   *
+   * @param socket The client's socket.
+   * @param player The client's player.
+   */
+  public void open(Socket socket, Player player) {
+    ClientHandler handler = new ClientHandler(manager, this, socket, player);
+    open.add(handler);
+    try {
+      socket.setSoTimeout(READ_TIMEOUT_MS);
+      threads.execute(handler);
+    } catch (SocketException | RejectedExecutionException e) {
+      e.printStackTrace();
+      close(handler);
+    }
+  }
+
+  /**
+   * Tear down a single connection. Safe to call more than once and from any thread.
+   *
+   * @param handler The handler whose connection should be closed.
+   */
+  public void close(ClientHandler handler) {
+    tearDown(handler);
+  }
+
+  /**
+   * Tear down a connection because its player has been idle for too long, and count it.
+   *
+   * @param handler The handler whose connection should be closed.
+   */
+  void closeIdle(ClientHandler handler) {
+    if (tearDown(handler)) {
+      idleDisconnects.incrementAndGet();
+    }
+  }
+
+  private boolean tearDown(ClientHandler handler) {
+    if (!open.remove(handler)) {
+      return false;
+    }
+    manager.removePlayer(handler.player());
+    try {
+      handler.socket().close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return true;
+  }
+
+  /**
+   * Set how long a player can send nothing but idle input before they're disconnected.
+   *
+   * @param timeoutMs The timeout in milliseconds, or 0 to never disconnect idle players.
+   * @throws IllegalArgumentException if <code>timeoutMs</code> is negative.
+   */
+  public void setIdleTimeout(long timeoutMs) {
+    if (timeoutMs < 0) {
+      throw new IllegalArgumentException("Idle timeout must not be negative: " + timeoutMs);
+    }
+    idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+  }
+
+  /**
+   * Determine whether a player last active at a given time has now been idle for too long.
+   *
+   * @param lastActiveNanos When the player last sent input that wasn't idle, from
+   *      <code>System.nanoTime</code>.
+   */
+  boolean idleTooLong(long lastActiveNanos) {
+    long timeout = idleTimeoutNanos;
+    return timeout > 0 && System.nanoTime() - lastActiveNanos > timeout;
+  }
+
+  /** The number of clients currently connected. */
+  public int openConnections() {
+    return open.size();
+  }
+
+  /** The number of clients disconnected so far for being idle too long. */
+  public long idleDisconnects() {
+    return idleDisconnects.get();
+  }
+
+  /** The number of threads currently held by the connection pool, busy or idle. */
+  public int threads() {
+    return threads.getPoolSize();
+  }
+
+  /** The number of threads currently serving a client. */
+  public int activeThreads() {
+    return threads.getActiveCount();
+  }
+
+  /**
+   * The number of file descriptors open in this process, where the platform reports it.
+   *
+   * @return The open descriptor count, or -1 if it isn't available.
+   */
+  public long openDescriptors() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+      return ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount();
+    }
+    return -1;
+  }
+}
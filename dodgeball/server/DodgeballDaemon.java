@@ -4,11 +4,17 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Spawns <code>dodgeballserver.ClientHandler</code> instances.
  */
 public class DodgeballDaemon implements Runnable {
+  // How long to wait after a failed accept, doubling with each failure in a row up to the maximum
+  private static final long FIRST_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
   private int port;
   private GameManager manager;
   
@@ -27,21 +33,45 @@ public class DodgeballDaemon implements Runnable {
       e.printStackTrace();
       return;
     }
+    long retryNanos = 0;
+    int failures = 0;
     while (true) {
       try {
         Socket socket = listener.accept();
+        if (failures > 0) {
+          System.out.println("Accepting players again after " + failures + " failed accepts");
+          failures = 0;
+          retryNanos = 0;
+        }
         Player player = new Player();
-        manager.addPlayer(player);
-        new Thread(new ClientHandler(manager, socket, player)).start();
+        if (!manager.admitPlayer(player)) {
+          System.out.println("Arena full; turned a player away");
+          closeQuietly(socket);
+          continue;
+        }
+        manager.connections().open(socket, player);
       } catch (IOException e) {
-        e.printStackTrace();
-        try {
-          listener.close();
-        } catch (IOException ioe) {
+        if (listener.isClosed()) {
           e.printStackTrace();
           return;
         }
+        // A failure that keeps happening, like running out of file descriptors, would otherwise
+        // spin this loop, so back off and only report the first failure in a row
+        if (failures == 0) {
+          e.printStackTrace();
+        }
+        failures++;
+        retryNanos = Math.min(Math.max(retryNanos * 2, FIRST_RETRY_NANOS), MAX_RETRY_NANOS);
+        LockSupport.parkNanos(retryNanos);
       }
     }
   }
+
+  private void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
 }
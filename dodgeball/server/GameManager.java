@@ -5,9 +5,12 @@ import dodgeball.game.Hitbox3;
 import dodgeball.game.Vector3;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The top-level manager for a game of dodgeball.
@@ -16,38 +19,87 @@ import java.util.concurrent.TimeUnit;
  * @version 3-1-2024
  */
 public class GameManager implements Runnable {
-  public static final int MAX_PLAYERS = Integer.MAX_VALUE;
+  public static final int DEFAULT_MAX_PLAYERS = 16;
+  public static final int DEFAULT_MAX_DODGEBALLS = 64;
+  public static final int DEFAULT_THROW_COOLDOWN_MS = 300;
   public static final int MS_PER_FRAME = 33;
+  public static final int IDLE_MS_PER_FRAME = 250;
+
+  private final int maxPlayers;
+  private final int maxDodgeballs;
+  private final long throwCooldownNanos;
+  private final AtomicLong playersRejected = new AtomicLong();
+  private final AtomicLong throwsOverBallLimit = new AtomicLong();
+  private final AtomicLong throwsInCooldown = new AtomicLong();
 
   private DodgeballDaemon daemon;
+  private ConnectionManager connections;
   private CollisionManager collManager;
   private List<Player> players;
   private List<Dodgeball> dodgeballs;
+
+  private ScheduledExecutorService scheduler;
+  private final Object tickLock = new Object();
+  private ScheduledFuture<?> nextTick; // null while the arena is suspended
+  private boolean inputPending;
   
   /**
-   * Instantiate a new game manager. Defaults to using port 8080.
+   * Instantiate a new game manager with the default limits. Defaults to using port 8080.
    */
   public GameManager() {
+    this(DEFAULT_MAX_PLAYERS, DEFAULT_MAX_DODGEBALLS, DEFAULT_THROW_COOLDOWN_MS);
+  }
+
+  /**
+   * Instantiate a new game manager with custom limits. Defaults to using port 8080. The limits
+   * bound the work done each frame, no matter how the clients behave.
+   *
+   * @param maxPlayers The most players that can be connected at once.
+   * @param maxDodgeballs The most dodgeballs that can be in the air at once.
+   * @param throwCooldownMs The number of milliseconds a player has to wait between throws.
+   */
+  public GameManager(int maxPlayers, int maxDodgeballs, int throwCooldownMs) {
+    if (maxPlayers < 1 || maxDodgeballs < 0 || throwCooldownMs < 0) {
+      throw new IllegalArgumentException("Limits must be non-negative and allow at least one "
+          + "player");
+    }
+    this.maxPlayers = maxPlayers;
+    this.maxDodgeballs = maxDodgeballs;
+    this.throwCooldownNanos = throwCooldownMs * 1000000L;
     daemon = new DodgeballDaemon(8080, this);
+    connections = new ConnectionManager(this);
     collManager = new CollisionManager();
-    players = new ArrayList<Player>();
-    dodgeballs = new ArrayList<Dodgeball>();
+    // Client handlers read these while the game tick changes them
+    players = new CopyOnWriteArrayList<Player>();
+    dodgeballs = new CopyOnWriteArrayList<Dodgeball>();
+    scheduler = Executors.newSingleThreadScheduledExecutor();
   }
 
   /**
-   * Add a new player to the game handler.
+   * Add a new player to the game handler if there's room for them. This is the only way players
+   * join, so the player limit always holds.
    *
    * @param player The player to be added.
+   * @return <code>true</code> if the player was added; <code>false</code> if the arena is full.
    */
-  public void addPlayer(Player player) {
+  public synchronized boolean admitPlayer(Player player) {
+    if (players.size() >= maxPlayers) {
+      playersRejected.incrementAndGet();
+      return false;
+    }
     players.add(player);
-    collManager.add(player);
+    wake();
+    return true;
   }
 
-  public void removePlayer(Player player) {
+  public synchronized void removePlayer(Player player) {
     players.remove(player);
   }
 
+  public ConnectionManager connections() {
+    return connections;
+  }
+
   public List<Player> players() {
     return players;
   }
@@ -56,13 +108,87 @@ public class GameManager implements Runnable {
     return dodgeballs;
   }
 
+  /** The number of connections turned away because the arena was full. */
+  public long playersRejected() {
+    return playersRejected.get();
+  }
+
+  /** The number of throws dropped because too many dodgeballs were already in the air. */
+  public long throwsOverBallLimit() {
+    return throwsOverBallLimit.get();
+  }
+
+  /** The number of throws dropped because the thrower's cooldown hadn't finished. */
+  public long throwsInCooldown() {
+    return throwsInCooldown.get();
+  }
+
   @Override
   public void run() {
     new Thread(daemon).start();
-    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    scheduler.scheduleAtFixedRate(() -> {
+    wake();
+  }
+
+  /**
+   * Bring the arena back up to full speed. Resumes ticking if the arena was suspended and cuts
+   * short a pending idle-rate tick. Cheap enough to call whenever a client sends input.
+   */
+  public void wake() {
+    synchronized (tickLock) {
+      inputPending = true;
+      if (nextTick == null) {
+        nextTick = scheduler.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+      } else if (nextTick.getDelay(TimeUnit.MILLISECONDS) > MS_PER_FRAME
+          && nextTick.cancel(false)) {
+        nextTick = scheduler.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Run one frame and schedule the next one. Arenas with no players and no dodgeballs stop
+   * ticking until <code>wake</code> is called; arenas whose players are all standing still drop
+   * to <code>IDLE_MS_PER_FRAME</code>.
+   */
+  private void tick() {
+    long start = System.nanoTime();
+    try {
       update(0.001 * MS_PER_FRAME);
-    }, 0, MS_PER_FRAME, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      // A failed frame shouldn't stop the arena for good.
+      e.printStackTrace();
+    }
+
+    synchronized (tickLock) {
+      int delay;
+      if (inputPending) {
+        delay = MS_PER_FRAME;
+      } else if (players.isEmpty() && dodgeballs.isEmpty()) {
+        delay = -1;
+      } else if (dodgeballs.isEmpty() && allPlayersStationary()) {
+        delay = IDLE_MS_PER_FRAME;
+      } else {
+        delay = MS_PER_FRAME;
+      }
+      inputPending = false;
+
+      if (delay < 0) {
+        nextTick = null;
+      } else {
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        nextTick = scheduler.schedule(this::tick, Math.max(0, delay - elapsed),
+            TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private boolean allPlayersStationary() {
+    for (Player player : players) {
+      if (!player.stationary()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -148,29 +274,28 @@ public class GameManager implements Runnable {
 
   private void handlePlayerInput(Player player) {
     InputData data = player.inputData();
+    long frame = data.frame();
 
     // Deal with movement.
     int forward = 0;
-    if (data.wdown()) {
+    if (InputData.wdown(frame)) {
       forward++;
     }
-    if (data.sdown()) {
+    if (InputData.sdown(frame)) {
       forward--;
     }
     int right = 0;
-    if (data.ddown()) {
+    if (InputData.ddown(frame)) {
       right++;
     }
-    if (data.adown()) {
+    if (InputData.adown(frame)) {
       right--;
     }
-    Vector3 forwardVector = new Vector3(player.lookVector().flatten());
-    Vector3 rightVector = forwardVector.cross(Vector3.J);
-    Vector3 moveVelocity = forwardVector.multiply(forward).add(
-        rightVector.multiply(right));
+    Vector3 moveVelocity = player.forwardVector().multiply(forward).add(
+        player.rightVector().multiply(right));
     moveVelocity = moveVelocity.unit().multiply(Player.WALK_SPEED);
 
-    if (data.spaceDown()) {
+    if (InputData.spaceDown(frame)) {
       player.jump(moveVelocity.xcoord, moveVelocity.zcoord);
     } else {
       moveVelocity = moveVelocity.multiply(0.001 * MS_PER_FRAME);
@@ -178,18 +303,27 @@ public class GameManager implements Runnable {
     }
 
     // Deal with look vectors.
-    double yaw = data.mouseX() / 50.0;
-    double pitch = data.mouseY() / 50.0;
+    double yaw = data.takeMouseX(frame) / 50.0;
+    double pitch = data.takeMouseY(frame) / 50.0;
     player.rotate(yaw, pitch);
 
-    // Throw dodgeballs
-    if (data.throwingDodgeball()) {
-      // Throw the dodgeball
+    // Throw one dodgeball per click, however many clicks arrived since the last frame, as long as
+    // the thrower's cooldown is up and there's room in the air
+    int throwsPending = data.takeThrows(frame);
+    for (int i = 0; i < throwsPending; i++) {
+      long now = System.nanoTime();
+      if (!player.canThrow(now)) {
+        throwsInCooldown.incrementAndGet();
+        continue;
+      }
+      if (dodgeballs.size() >= maxDodgeballs) {
+        throwsOverBallLimit.incrementAndGet();
+        continue;
+      }
+      player.onThrow(now + throwCooldownNanos);
       Vector3 velocity = player.lookVector().multiply(Player.THROW_STRENGTH);
       Dodgeball ball = new Dodgeball(player.headPosition(), velocity, player);
       dodgeballs.add(ball);
-      // Prevent double-throws
-      data.setThrowingDodgeball(false);
     }
   }
 }
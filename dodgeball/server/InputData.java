@@ -1,106 +1,234 @@
 package dodgeball.server;
 
 /**
- * Stores a player's input data, including buttons and mouse positions.
+ * Stores a player's input data, including buttons and mouse movement.
+ *
+ * <p>Each input frame is packed into a single <code>long</code> and published through a volatile
+ * field, so the game tick always sees a complete frame. Only one thread (the player's
+ * <code>ClientHandler</code>) may call <code>publish</code>. Throws and mouse movement are stored
+ * as running totals rather than flags, and the game tick takes the difference since the last
+ * frame it saw, so nothing is lost or counted twice no matter how the two threads interleave.
+ *
+ * <p>Frame layout, from the low bits up:
+ * <ul>
+ * <li>bits 0-5: W, A, S, D, space, and C held</li>
+ * <li>bits 8-23: the number of dodgeballs thrown, modulo 2^16</li>
+ * <li>bits 24-43: total mouse x movement in sixteenths of a pixel, modulo 2^20</li>
+ * <li>bits 44-63: total mouse y movement in sixteenths of a pixel, modulo 2^20</li>
+ * </ul>
  *
  * @author Andrew Yim
  * @version 3-8-2024
  */
 public class InputData {
-  private boolean wdown;
-  private boolean adown;
-  private boolean sdown;
-  private boolean ddown;
-  private boolean spaceDown;
-  private boolean cdown;
-  private double mouseX;
-  private double mouseY;
-  private boolean throwingDodgeball;
+  private static final long W = 1L;
+  private static final long A = 1L << 1;
+  private static final long S = 1L << 2;
+  private static final long D = 1L << 3;
+  private static final long SPACE = 1L << 4;
+  private static final long C = 1L << 5;
+  private static final long MOVEMENT_KEYS = W | A | S | D | SPACE;
+
+  private static final int THROW_SHIFT = 8;
+  private static final int THROW_MASK = 0xFFFF;
+  private static final int MOUSE_X_SHIFT = 24;
+  private static final int MOUSE_Y_SHIFT = 44;
+  private static final int MOUSE_BITS = 20;
+  private static final int MOUSE_MASK = (1 << MOUSE_BITS) - 1;
+  private static final double MOUSE_SCALE = 16.0;
+
+  private volatile long frame;
+
+  // Read-side cursors. Only touched by the game tick.
+  private int seenThrows;
+  private int seenMouseX;
+  private int seenMouseY;
 
   /**
-   * Construct a new input data bank with all values set to 0 or <code>false</code>.
+   * Construct a new input data bank with no buttons held and no mouse movement.
    */
   public InputData() {
-    wdown = false;
-    adown = false;
-    sdown = false;
-    ddown = false;
-    spaceDown = false;
-    cdown = false;
-    mouseX = 0;
-    mouseY = 0;
-    throwingDodgeball = false;
-  }
-  
+    frame = 0;
+  }
+
+  /**
+   * Publish a new input frame. Must only ever be called from one thread.
+   *
+   * @param wdown Whether W is held.
+   * @param adown Whether A is held.
+   * @param sdown Whether S is held.
+   * @param ddown Whether D is held.
+   * @param spaceDown Whether space is held.
+   * @param cdown Whether C is held.
+   * @param throwing Whether the player clicked to throw a dodgeball this frame.
+   * @param mouseX How far the mouse moved horizontally this frame, in pixels.
+   * @param mouseY How far the mouse moved vertically this frame, in pixels.
+   */
+  public void publish(boolean wdown, boolean adown, boolean sdown, boolean ddown,
+      boolean spaceDown, boolean cdown, boolean throwing, double mouseX, double mouseY) {
+    long previous = frame;
+
+    long buttons = 0;
+    if (wdown) {
+      buttons |= W;
+    }
+    if (adown) {
+      buttons |= A;
+    }
+    if (sdown) {
+      buttons |= S;
+    }
+    if (ddown) {
+      buttons |= D;
+    }
+    if (spaceDown) {
+      buttons |= SPACE;
+    }
+    if (cdown) {
+      buttons |= C;
+    }
+
+    int throwCount = throwCount(previous);
+    if (throwing) {
+      throwCount = (throwCount + 1) & THROW_MASK;
+    }
+    int totalX = (mouseTotal(previous, MOUSE_X_SHIFT) + quantize(mouseX)) & MOUSE_MASK;
+    int totalY = (mouseTotal(previous, MOUSE_Y_SHIFT) + quantize(mouseY)) & MOUSE_MASK;
+
+    frame = buttons | ((long) throwCount << THROW_SHIFT) | ((long) totalX << MOUSE_X_SHIFT)
+        | ((long) totalY << MOUSE_Y_SHIFT);
+  }
+
+  /**
+   * Get the most recently published input frame.
+   *
+   * @return The packed input frame.
+   */
+  public long frame() {
+    return frame;
+  }
+
   public boolean wdown() {
-    return wdown;
+    return wdown(frame);
   }
 
   public boolean adown() {
-    return adown;
+    return adown(frame);
   }
 
   public boolean sdown() {
-    return sdown;
+    return sdown(frame);
   }
 
   public boolean ddown() {
-    return ddown;
+    return ddown(frame);
   }
 
   public boolean spaceDown() {
-    return spaceDown;
+    return spaceDown(frame);
   }
 
   public boolean cdown() {
-    return cdown;
+    return cdown(frame);
   }
 
-  public double mouseX() {
-    return mouseX;
+  public static boolean wdown(long frame) {
+    return (frame & W) != 0;
   }
 
-  public double mouseY() {
-    return mouseY;
+  public static boolean adown(long frame) {
+    return (frame & A) != 0;
   }
 
-  public boolean throwingDodgeball() {
-    return throwingDodgeball;
+  public static boolean sdown(long frame) {
+    return (frame & S) != 0;
   }
 
-  public void setW(boolean wdown) {
-    this.wdown = wdown;
+  public static boolean ddown(long frame) {
+    return (frame & D) != 0;
   }
 
-  public void setA(boolean adown) {
-    this.adown = adown;
+  public static boolean spaceDown(long frame) {
+    return (frame & SPACE) != 0;
   }
 
-  public void setS(boolean sdown) {
-    this.sdown = sdown;
+  public static boolean cdown(long frame) {
+    return (frame & C) != 0;
   }
 
-  public void setD(boolean ddown) {
-    this.ddown = ddown;
+  /**
+   * Count the dodgeballs thrown since the last call, and mark them as handled. Should only be
+   * called by the game tick.
+   *
+   * @param frame A frame returned by <code>frame()</code>.
+   * @return The number of throws in <code>frame</code> that haven't been handled yet.
+   */
+  public int takeThrows(long frame) {
+    int count = throwCount(frame);
+    int pending = (count - seenThrows) & THROW_MASK;
+    seenThrows = count;
+    return pending;
+  }
+
+  /**
+   * Get the horizontal mouse movement since the last call, and mark it as handled. Should only be
+   * called by the game tick.
+   *
+   * @param frame A frame returned by <code>frame()</code>.
+   * @return The mouse's horizontal movement in pixels.
+   */
+  public double takeMouseX(long frame) {
+    int total = mouseTotal(frame, MOUSE_X_SHIFT);
+    int delta = total - seenMouseX;
+    seenMouseX = total;
+    return dequantize(delta);
   }
 
-  public void setSpace(boolean spaceDown) {
-    this.spaceDown = spaceDown;
+  /**
+   * Get the vertical mouse movement since the last call, and mark it as handled. Should only be
+   * called by the game tick.
+   *
+   * @param frame A frame returned by <code>frame()</code>.
+   * @return The mouse's vertical movement in pixels.
+   */
+  public double takeMouseY(long frame) {
+    int total = mouseTotal(frame, MOUSE_Y_SHIFT);
+    int delta = total - seenMouseY;
+    seenMouseY = total;
+    return dequantize(delta);
+  }
+
+  /**
+   * Determine whether this input would leave the player where they are. Holding C doesn't count,
+   * since catching only matters while dodgeballs are in the air. Should only be called by the game
+   * tick.
+   *
+   * @return <code>true</code> if no movement keys are held and every throw and mouse movement has
+   *      already been handled; <code>false</code> otherwise.
+   */
+  public boolean idle() {
+    long current = frame;
+    return (current & MOVEMENT_KEYS) == 0 && throwCount(current) == seenThrows
+        && mouseTotal(current, MOUSE_X_SHIFT) == seenMouseX
+        && mouseTotal(current, MOUSE_Y_SHIFT) == seenMouseY;
   }
 
-  public void setC(boolean cdown) {
-    this.cdown = cdown;
+  private static int throwCount(long frame) {
+    return (int) (frame >>> THROW_SHIFT) & THROW_MASK;
   }
 
-  public void setMouseX(double mouseX) {
-    this.mouseX = mouseX;
+  private static int mouseTotal(long frame, int shift) {
+    return (int) (frame >>> shift) & MOUSE_MASK;
   }
 
-  public void setMouseY(double mouseY) {
-    this.mouseY = mouseY;
+  private static int quantize(double pixels) {
+    return (int) Math.round(pixels * MOUSE_SCALE);
   }
 
-  public void setThrowingDodgeball(boolean throwingDodgeball) {
-    this.throwingDodgeball = throwingDodgeball;
+  /** Convert a difference of two wrapped totals back to pixels. */
+  private static double dequantize(int delta) {
+    // Sign-extend from MOUSE_BITS bits
+    delta = (delta << (32 - MOUSE_BITS)) >> (32 - MOUSE_BITS);
+    return delta / MOUSE_SCALE;
   }
 }
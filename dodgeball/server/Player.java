@@ -1,6 +1,5 @@
 package dodgeball.server;
 
-import dodgeball.game.Camera;
 import dodgeball.game.Projectile3;
 import dodgeball.game.RectangleBox3;
 import dodgeball.game.Vector3;
@@ -19,11 +18,22 @@ public class Player extends RectangleBox3 {
   public static final double THROW_STRENGTH = 50.0;
   private static final Vector3 DIMENSIONS = new Vector3(BASE_SIZE, HEIGHT, BASE_SIZE);
   private static final Vector3 CENTER_TO_HEAD = new Vector3(0, HEIGHT * 0.25, 0);
+  private static final double MAX_PITCH = Math.PI / 4.0;
 
   private Vector3 feetLocation;
+  // Orientation in radians. Yaw is clockwise from the positive x-axis when viewed from above.
+  private double yaw;
+  private double pitch;
+  private double sinYaw;
+  private double cosYaw;
+  private double sinPitch;
+  private double cosPitch;
   private Vector3 lookVector;
+  private Vector3 forwardVector;
+  private Vector3 rightVector;
   private Projectile3 jumpTrajectory;
   private InputData inputData;
+  private long nextThrowNanos;
   
   private boolean hit;
 
@@ -33,8 +43,9 @@ public class Player extends RectangleBox3 {
   public Player() {
     super(DIMENSIONS, new Vector3(0, HEIGHT / 2.0, 0));
     feetLocation = Vector3.ZERO;
-    lookVector = Vector3.I;
+    setOrientation(0, 0);
     inputData = new InputData();
+    nextThrowNanos = System.nanoTime();
     hit = false;
   }
 
@@ -46,18 +57,42 @@ public class Player extends RectangleBox3 {
   public Player(Vector3 position) {
     super(DIMENSIONS, position);
     this.feetLocation = position.add(new Vector3(0, -HEIGHT / 2.0, 0));
-    lookVector = Vector3.I;
+    setOrientation(0, 0);
     this.inputData = new InputData();
+    nextThrowNanos = System.nanoTime();
   }
 
   public Vector3 headPosition() {
     return center().add(CENTER_TO_HEAD);
   }
   
+  /**
+   * The unit vector the player is looking along.
+   *
+   * @return The player's look vector.
+   */
   public Vector3 lookVector() {
     return lookVector;
   }
 
+  /**
+   * The horizontal unit vector the player walks along when moving forward.
+   *
+   * @return The player's forward vector.
+   */
+  public Vector3 forwardVector() {
+    return forwardVector;
+  }
+
+  /**
+   * The horizontal unit vector the player walks along when strafing right.
+   *
+   * @return The player's right vector.
+   */
+  public Vector3 rightVector() {
+    return rightVector;
+  }
+
   public InputData inputData() {
     return inputData;
   }
@@ -66,6 +101,16 @@ public class Player extends RectangleBox3 {
     return hit;
   }
 
+  /**
+   * Determine whether the player is standing still: not jumping, and not sending any input that
+   * would move them, turn them, or throw a dodgeball.
+   *
+   * @return <code>true</code> if the player is stationary; <code>false</code> otherwise.
+   */
+  public boolean stationary() {
+    return jumpTrajectory == null && inputData.idle();
+  }
+
   /**
    * Determine the player's position a given number of seconds into the future if they are jumping.
    *
@@ -113,8 +158,66 @@ public class Player extends RectangleBox3 {
         new Vector3(xvelocity, JUMP_POWER, zvelocity));
   }
 
+  /**
+   * Turn the player. Pitch is limited to +-45 degrees. Does nothing if neither angle changes.
+   *
+   * @param yaw The number of degrees to turn clockwise by.
+   * @param pitch The number of degrees to look up by.
+   */
   public void rotate(double yaw, double pitch) {
-    lookVector = Camera.rotateLookVector(lookVector, yaw, pitch);
+    if (yaw == 0 && pitch == 0) {
+      return;
+    }
+    double newPitch = this.pitch + Math.toRadians(pitch);
+    newPitch = Math.max(-MAX_PITCH, Math.min(MAX_PITCH, newPitch));
+    setOrientation(this.yaw + Math.toRadians(yaw), newPitch);
+  }
+
+  /**
+   * Set the player's yaw and pitch, recomputing only the trig and vectors that depend on the
+   * angles that actually changed.
+   */
+  private void setOrientation(double newYaw, double newPitch) {
+    newYaw = Math.IEEEremainder(newYaw, 2 * Math.PI);
+    boolean yawChanged = newYaw != yaw || forwardVector == null;
+    boolean pitchChanged = newPitch != pitch || lookVector == null;
+    if (!yawChanged && !pitchChanged) {
+      return;
+    }
+
+    if (yawChanged) {
+      yaw = newYaw;
+      sinYaw = Math.sin(yaw);
+      cosYaw = Math.cos(yaw);
+      forwardVector = new Vector3(cosYaw, 0, sinYaw);
+      rightVector = new Vector3(-sinYaw, 0, cosYaw);
+    }
+    if (pitchChanged) {
+      pitch = newPitch;
+      sinPitch = Math.sin(pitch);
+      cosPitch = Math.cos(pitch);
+    }
+    lookVector = new Vector3(cosPitch * cosYaw, sinPitch, cosPitch * sinYaw);
+  }
+
+  /**
+   * Determine whether the player's throw cooldown has finished.
+   *
+   * @param now The current time, from <code>System.nanoTime()</code>.
+   * @return <code>true</code> if the player may throw; <code>false</code> otherwise.
+   */
+  public boolean canThrow(long now) {
+    return now - nextThrowNanos >= 0;
+  }
+
+  /**
+   * Record a throw, starting the player's cooldown.
+   *
+   * @param nextThrowNanos The earliest time the player may throw again, in
+   *      <code>System.nanoTime()</code> terms.
+   */
+  public void onThrow(long nextThrowNanos) {
+    this.nextThrowNanos = nextThrowNanos;
   }
 
   public void onDodgeballHit() {
@@ -1,5 +1,7 @@
 package dodgeball.server;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Host a game of Dodgeball from this computer.
  */
@@ -7,12 +9,50 @@ public class RunDodgeball {
   /**
    * Host a game of dodgeball.
    *
-   * @param args Command line arguments
+   * @param args Command line arguments. Optionally, the maximum number of players, the maximum
+   *      number of dodgeballs in the air, and the throw cooldown in milliseconds, in that order.
    */
   public static void main(String[] args) {
-    System.out.println("\nNow hosting a game of dodgeball. Thank you for your sacrifice!\n");
+    GameManager manager;
+    try {
+      int maxPlayers = args.length > 0 ? Integer.parseInt(args[0])
+          : GameManager.DEFAULT_MAX_PLAYERS;
+      int maxDodgeballs = args.length > 1 ? Integer.parseInt(args[1])
+          : GameManager.DEFAULT_MAX_DODGEBALLS;
+      int throwCooldownMs = args.length > 2 ? Integer.parseInt(args[2])
+          : GameManager.DEFAULT_THROW_COOLDOWN_MS;
+      manager = new GameManager(maxPlayers, maxDodgeballs, throwCooldownMs);
+    } catch (NumberFormatException e) {
+      exitWithUsage("Limits must be whole numbers: " + String.join(" ", args));
+      return;
+    } catch (IllegalArgumentException e) {
+      exitWithUsage(e.getMessage());
+      return;
+    }
+
+    // How long players can sit idle before they're disconnected, with 0 for no limit
+    String idle = System.getProperty("dodgeball.idle");
+    if (idle != null) {
+      long seconds;
+      try {
+        seconds = Long.parseLong(idle);
+      } catch (NumberFormatException e) {
+        seconds = -1;
+      }
+      if (seconds < 0) {
+        exitWithUsage("dodgeball.idle must be a whole number of seconds, 0 or more: " + idle);
+        return;
+      }
+      manager.connections().setIdleTimeout(TimeUnit.SECONDS.toMillis(seconds));
+    }
 
-    GameManager manager = new GameManager();
+    System.out.println("\nNow hosting a game of dodgeball. Thank you for your sacrifice!\n");
     new Thread(manager).start();
   }
+
+  private static void exitWithUsage(String problem) {
+    System.out.println(problem);
+    System.out.println("usage: RunDodgeball [maxPlayers maxDodgeballs cooldownMs]");
+    System.exit(1);
+  }
 }